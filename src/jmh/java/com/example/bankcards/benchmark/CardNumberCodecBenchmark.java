@@ -0,0 +1,113 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.BankCardMask;
+import com.example.bankcards.util.Base64Codec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает стоимость операции и объём выделяемой памяти (-prof gc)
+ * для прежней реализации маскирования и кодирования номера карты (String.replaceAll, getBytes на каждый вызов)
+ * и текущей реализации BankCardMask/Base64Codec.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardNumberCodecBenchmark {
+
+    private static final String CARD_NUMBER = "4276550012345678";
+
+    private String encodedCardNumber;
+
+    @Setup
+    public void setup() {
+        encodedCardNumber = Base64Codec.encodeCardNumber(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String maskLegacy() {
+        return LegacyCardNumberCodec.getNumberCardMask(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String mask() {
+        return BankCardMask.getNumberCardMask(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String encodeLegacy() {
+        return LegacyCardNumberCodec.encodeCardNumber(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base64Codec.encodeCardNumber(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String decodeLegacy() {
+        return LegacyCardNumberCodec.decodeCardNumber(encodedCardNumber);
+    }
+
+    @Benchmark
+    public String decode() {
+        return Base64Codec.decodeCardNumber(encodedCardNumber);
+    }
+
+    @Benchmark
+    public String decodeAndMaskLegacy() {
+        return LegacyCardNumberCodec.getNumberCardMask(LegacyCardNumberCodec.decodeCardNumber(encodedCardNumber));
+    }
+
+    @Benchmark
+    public String decodeAndMask() {
+        return BankCardMask.getNumberCardMask(Base64Codec.decodeCardNumber(encodedCardNumber));
+    }
+
+    /**
+     * Прежняя реализация, оставленная как точка отсчёта.
+     **/
+    static final class LegacyCardNumberCodec {
+
+        private static final String codeWord = "bank_rest";
+
+        static String getNumberCardMask(String numberCard) {
+            return numberCard.replaceAll(BankCardMask.PATTERN, BankCardMask.REPLACE);
+        }
+
+        static String encodeCardNumber(String cardNumber) {
+            byte[] cardNumberBytes = cardNumber.getBytes(StandardCharsets.UTF_8);
+            xorInPlace(cardNumberBytes, codeWord.getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getEncoder().encodeToString(cardNumberBytes);
+        }
+
+        static String decodeCardNumber(String cardNumberBase64) {
+            byte[] cardNumberBytes = Base64.getDecoder().decode(cardNumberBase64);
+            xorInPlace(cardNumberBytes, codeWord.getBytes(StandardCharsets.UTF_8));
+
+            return new String(cardNumberBytes, StandardCharsets.UTF_8);
+        }
+
+        private static void xorInPlace(byte[] data, byte[] key) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] ^= key[i % key.length];
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.config.JwtProperties;
+import com.example.bankcards.config.SecurityConfiguration;
+import com.example.bankcards.config.SigningKeyConfig;
+import com.example.bankcards.config.SigningKeyProperties;
+import com.example.bankcards.enumpack.SigningAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подпись и проверка токена доступа для каждого алгоритма:
+ * sign - выпуск токена, verify - полная проверка подписи и утверждений,
+ * verifyCached - повторное предъявление того же токена через кэш проверенных токенов.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    @Param({"RS256", "ES256"})
+    private SigningAlgorithm algorithm;
+
+    private JwtEncoder jwtEncoder;
+    private JwtDecoder jwtDecoder;
+    private JwtDecoder cachingJwtDecoder;
+    private JwtEncoderParameters parameters;
+    private String token;
+    private String cachingToken;
+
+    @Setup
+    public void setup() {
+        SigningKeyProperties signingKeyProperties = new SigningKeyProperties(algorithm, null, null, List.of());
+        SecurityConfiguration securityConfiguration = new SecurityConfiguration(
+                new SigningKeyConfig().signingKeys(signingKeyProperties),
+                new JwtProperties(Duration.ofMinutes(5), Duration.ofDays(7), 0));
+        SecurityConfiguration cachingSecurityConfiguration = new SecurityConfiguration(
+                new SigningKeyConfig().signingKeys(signingKeyProperties),
+                new JwtProperties(Duration.ofMinutes(5), Duration.ofDays(7), 10_000));
+
+        jwtEncoder = securityConfiguration.jwtEncoder();
+        jwtDecoder = securityConfiguration.jwtDecoder();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .claim("scope", List.of("USER"))
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plus(Duration.ofHours(1)))
+                .subject("ivan@gmail.com")
+                .build();
+        parameters = JwtEncoderParameters.from(claims);
+        token = jwtEncoder.encode(parameters).getTokenValue();
+
+        cachingJwtDecoder = cachingSecurityConfiguration.jwtDecoder();
+        cachingToken = cachingSecurityConfiguration.jwtEncoder().encode(parameters).getTokenValue();
+    }
+
+    @Benchmark
+    public Jwt sign() {
+        return jwtEncoder.encode(parameters);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt verifyCached() {
+        return cachingJwtDecoder.decode(cachingToken);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.Base64Codec;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный тест смешанной нагрузки через HTTP: 80% запросов - список карт пользователя,
+ * 20% - перевод между его картами, с basic-аутентификацией сервисного клиента. Для каждого режима (platform - пул потоков Tomcat,
+ * virtual - профиль virtual-threads) и каждого числа клиентских потоков печатает
+ * пропускную способность, задержки p50/p99 и число отказов (в том числе 503 ограничителя запросов).
+ * База - встроенная H2 из профиля test, поэтому абсолютные значения ниже, чем на PostgreSQL,
+ * сравнивать имеет смысл режимы и уровни параллелизма между собой.
+ * Аргументы: режимы через запятую, числа потоков через запятую, длительность замера в секундах.
+ **/
+public class MixedWorkloadLoadTest {
+
+    private static final int USERS = 100;
+    private static final int WARMUP_SECONDS = 3;
+    private static final int TRANSFER_PERCENT = 20;
+    private static final String PASSWORD = "load-test";
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.asList((args.length > 0 ? args[0] : "platform,virtual").split(","));
+        int[] threads = Arrays.stream((args.length > 1 ? args[1] : "8,32,128,512").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        System.out.printf("%-9s %8s %12s %9s %9s %8s%n", "mode", "threads", "req/s", "p50 ms", "p99 ms", "errors");
+        for (String mode : modes) {
+            if ("virtual".equals(mode) && Runtime.version().feature() < 21) {
+                System.out.println("virtual: skipped, requires Java 21 (running " + Runtime.version() + ")");
+                continue;
+            }
+            try (ConfigurableApplicationContext context = start(mode)) {
+                Fixture fixture = seed(context);
+                for (int threadCount : threads) {
+                    run(fixture, threadCount, WARMUP_SECONDS);
+                    Result result = run(fixture, threadCount, seconds);
+                    System.out.printf("%-9s %8d %12.1f %9.2f %9.2f %8d%n", mode, threadCount,
+                            result.requests() / (double) seconds, result.percentile(50), result.percentile(99), result.errors());
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        List<String> profiles = new ArrayList<>(List.of("test"));
+        if ("virtual".equals(mode)) {
+            profiles.add("virtual-threads");
+        }
+        return new SpringApplicationBuilder(BankRestApplication.class)
+                .profiles(profiles.toArray(String[]::new))
+                .properties("server.port=0",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static Fixture seed(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+
+        List<Client> clients = new ArrayList<>();
+        long suffix = System.nanoTime() % 1_000_000;
+        for (int i = 0; i < USERS; i++) {
+            String id = String.format("%06d%03d", suffix, i);
+            User user = userRepository.save(User.builder()
+                    .firstname("Ivan")
+                    .lastname("Ivanov")
+                    .phoneNumber("+375" + id)
+                    .email("load" + id + "@gmail.com")
+                    .role(Role.USER)
+                    .birthDate(LocalDate.of(2000, 11, 11))
+                    .passportNumber(id)
+                    .password("{noop}" + PASSWORD)
+                    .build());
+            String cardFrom = String.format("4276%012d", i * 2L);
+            String cardTo = String.format("4276%012d", i * 2L + 1);
+            cardRepository.save(getCard(user, cardFrom));
+            cardRepository.save(getCard(user, cardTo));
+            String credentials = Base64.getEncoder().encodeToString((user.getEmail() + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+            clients.add(new Client(user.getId(), "Basic " + credentials, cardFrom, cardTo));
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return new Fixture("http://localhost:" + port + "/api/v1", clients);
+    }
+
+    private static Result run(Fixture fixture, int threadCount, int seconds) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> runClient(httpClient, fixture, deadline)));
+            }
+            Result total = new Result(new long[0], 0);
+            for (Future<Result> future : futures) {
+                total = total.merge(future.get());
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result runClient(HttpClient httpClient, Fixture fixture, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1024];
+        int count = 0;
+        int errors = 0;
+        while (System.nanoTime() < deadline) {
+            Client client = fixture.clients().get(random.nextInt(fixture.clients().size()));
+            HttpRequest request = random.nextInt(100) < TRANSFER_PERCENT
+                    ? transferRequest(fixture.baseUrl(), client, random.nextBoolean())
+                    : cardsRequest(fixture.baseUrl(), client);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 300) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(Arrays.copyOf(latencies, count), errors);
+    }
+
+    private static HttpRequest cardsRequest(String baseUrl, Client client) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + client.userId() + "/cards?withTotal=false"))
+                .header("Authorization", client.authorization())
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest transferRequest(String baseUrl, Client client, boolean forward) {
+        String body = "{\"userId\":" + client.userId()
+                      + ",\"cardFrom\":\"" + (forward ? client.cardFrom() : client.cardTo())
+                      + "\",\"cardTo\":\"" + (forward ? client.cardTo() : client.cardFrom())
+                      + "\",\"sum\":0.01}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + client.userId() + "/transfers"))
+                .header("Authorization", client.authorization())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Card getCard(User user, String number) {
+        return Card.builder()
+                .number(Base64Codec.encodeCardNumber(number))
+                .user(user)
+                .expirationDate(LocalDate.of(2035, 12, 12))
+                .status(Status.ACTIVE)
+                .balance(new BigDecimal("1000000.00"))
+                .build();
+    }
+
+    private record Client(Long userId, String authorization, String cardFrom, String cardTo) {
+    }
+
+    private record Fixture(String baseUrl, List<Client> clients) {
+    }
+
+    private record Result(long[] latencies, int errors) {
+
+        long requests() {
+            return latencies.length;
+        }
+
+        Result merge(Result other) {
+            long[] merged = Arrays.copyOf(latencies, latencies.length + other.latencies.length);
+            System.arraycopy(other.latencies, 0, merged, latencies.length, other.latencies.length);
+            return new Result(merged, errors + other.errors);
+        }
+
+        double percentile(int percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.predicate.QPredicate;
+import com.querydsl.core.types.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.bankcards.entity.QCard.card;
+import static com.example.bankcards.entity.QUser.user;
+
+/**
+ * Стоимость построения условий QueryDSL для фильтров карт и пользователей, выполняемого на каждый запрос списка.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QPredicateBenchmark {
+
+    private final LocalDate expirationDate = LocalDate.of(2030, 1, 1);
+    private final LocalDate birthDate = LocalDate.of(2000, 1, 1);
+    private final String emptyValue = null;
+    private final LocalDate emptyDate = null;
+
+    @Benchmark
+    public Predicate emptyFilter() {
+        return QPredicate.builder()
+                .add(emptyValue, card.lastFourHash::eq)
+                .add(emptyDate, card.expirationDate::before)
+                .buildAnd();
+    }
+
+    @Benchmark
+    public Predicate cardFilter() {
+        return QPredicate.builder()
+                .add(1L, card.user.id::eq)
+                .add("hash", card.lastFourHash::eq)
+                .add(expirationDate, card.expirationDate::before)
+                .buildAnd();
+    }
+
+    @Benchmark
+    public Predicate userFilter() {
+        return QPredicate.builder()
+                .add("Iva", user.firstname::containsIgnoreCase)
+                .add("Iva", user.lastname::containsIgnoreCase)
+                .add("+375", user.phoneNumber::startsWithIgnoreCase)
+                .add("ivan", user.email::containsIgnoreCase)
+                .add(birthDate, user.birthDate::before)
+                .add("HB", user.passportNumber::startsWithIgnoreCase)
+                .buildAnd();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardReadDto;
+import com.example.bankcards.dto.TransferReadDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.mapper.CardReadMapper;
+import com.example.bankcards.mapper.TransferReadMapper;
+import com.example.bankcards.mapper.UserReadMapper;
+import com.example.bankcards.util.Base64Codec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость преобразования страницы карт и переводов в DTO (маскирование и декодирование номеров включительно).
+ * Одна операция - одна страница размера pageSize.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadMapperBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private final UserReadMapper userReadMapper = new UserReadMapper();
+    private final CardReadMapper cardReadMapper = new CardReadMapper(userReadMapper);
+    private final TransferReadMapper transferReadMapper = new TransferReadMapper(userReadMapper);
+
+    private List<Card> cards;
+    private List<Transfer> transfers;
+
+    @Setup
+    public void setup() {
+        cards = new ArrayList<>(pageSize);
+        transfers = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            User user = getUser(i);
+            String cardNumber = String.valueOf(4276_5500_0000_0000L + i);
+            cards.add(Card.builder()
+                    .id((long) i)
+                    .number(Base64Codec.encodeCardNumber(cardNumber))
+                    .user(user)
+                    .expirationDate(LocalDate.of(2030, 11, 11))
+                    .status(Status.ACTIVE)
+                    .balance(BigDecimal.valueOf(100.00))
+                    .build());
+            transfers.add(Transfer.builder()
+                    .id((long) i)
+                    .user(user)
+                    .cardFrom(Base64Codec.encodeCardNumber(cardNumber))
+                    .cardTo(Base64Codec.encodeCardNumber("1234123412341234"))
+                    .transferDate(LocalDate.of(2025, 1, 1))
+                    .sum(BigDecimal.valueOf(50.00))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<CardReadDto> mapCardPage() {
+        List<CardReadDto> result = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            result.add(cardReadMapper.map(card));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<TransferReadDto> mapTransferPage() {
+        List<TransferReadDto> result = new ArrayList<>(transfers.size());
+        for (Transfer transfer : transfers) {
+            result.add(transferReadMapper.map(transfer));
+        }
+        return result;
+    }
+
+    private static User getUser(int index) {
+        return User.builder()
+                .id((long) index)
+                .firstname("Ivan")
+                .lastname("Ivanov")
+                .phoneNumber("+37529" + index)
+                .email("ivan" + index + "@gmail.com")
+                .role(Role.USER)
+                .birthDate(LocalDate.of(2000, 11, 11))
+                .passportNumber("HB" + index)
+                .build();
+    }
+}
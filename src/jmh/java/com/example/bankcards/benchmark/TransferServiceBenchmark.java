@@ -0,0 +1,115 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.dto.TransferCreateEditDto;
+import com.example.bankcards.dto.TransferReadDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.Base64Codec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость TransferService.create целиком (транзакция, блокировка карт, запись перевода)
+ * на встроенной базе H2 из профиля test, для каждого режима перевода.
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferServiceBenchmark {
+
+    private static final String CARD_FROM = "4276550012345678";
+    private static final String CARD_TO = "4276550087654321";
+
+    @Param({"pessimistic", "optimistic", "atomic"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+    private TransferCreateEditDto forward;
+    private TransferCreateEditDto backward;
+    private boolean forwardNext;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(BankRestApplication.class)
+                .profiles("test")
+                .properties("bank.transfer.mode=" + mode,
+                        "server.port=0",
+                        "logging.level.root=WARN")
+                .run();
+        transferService = context.getBean(TransferService.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .firstname("Ivan")
+                .lastname("Ivanov")
+                .phoneNumber("+375291111111")
+                .email("ivan@gmail.com")
+                .role(Role.USER)
+                .birthDate(LocalDate.of(2000, 11, 11))
+                .passportNumber("HB1111111")
+                .password("{noop}123")
+                .build());
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        cardRepository.save(getCard(user, CARD_FROM));
+        cardRepository.save(getCard(user, CARD_TO));
+
+        forward = getTransfer(user, CARD_FROM, CARD_TO);
+        backward = getTransfer(user, CARD_TO, CARD_FROM);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferReadDto create() {
+        forwardNext = !forwardNext;
+        return transferService.create(forwardNext ? forward : backward);
+    }
+
+    private static Card getCard(User user, String number) {
+        return Card.builder()
+                .number(Base64Codec.encodeCardNumber(number))
+                .user(user)
+                .expirationDate(LocalDate.of(2035, 12, 12))
+                .status(Status.ACTIVE)
+                .balance(new BigDecimal("1000000.00"))
+                .build();
+    }
+
+    private static TransferCreateEditDto getTransfer(User user, String cardFrom, String cardTo) {
+        return TransferCreateEditDto.builder()
+                .userId(user.getId())
+                .cardFrom(cardFrom)
+                .cardTo(cardTo)
+                .sum(new BigDecimal("1.00"))
+                .build();
+    }
+}
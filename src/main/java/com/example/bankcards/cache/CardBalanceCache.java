@@ -0,0 +1,94 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.config.BalanceCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Кэш балансов карт по закодированному номеру и соответствия id карты её номеру.
+ * Балансы хранятся по номеру, потому что переводы знают только номера карт
+ * и сбрасывают их записи без дополнительного запроса id. Попадания и промахи
+ * публикуются метриками cache.gets с тегами cache=card.balance и cache=card.number.
+ * Кэш локален для экземпляра: переводы и изменения карт на других репликах его не сбрасывают,
+ * и чтение баланса и номера карты может отставать от базы на срок жизни записи (bank.card.balance-cache.ttl).
+ * Сами переводы проверяют баланс по базе и от кэша не зависят.
+ **/
+@Component
+public class CardBalanceCache {
+
+    private final Cache<Long, String> numbers;
+    private final Cache<String, BigDecimal> balances;
+
+    public CardBalanceCache(BalanceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.numbers = Caffeine.newBuilder()
+                .maximumSize(properties.size())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(properties.size())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, numbers, "card.number");
+        CaffeineCacheMetrics.monitor(meterRegistry, balances, "card.balance");
+    }
+
+    public Optional<String> getNumber(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(numbers.getIfPresent(id));
+    }
+
+    public void putNumber(Long id, String encodedNumber) {
+        numbers.put(id, encodedNumber);
+    }
+
+    /**
+     * Возвращает баланс из кэша или загружает его. Загрузка выполняется под блокировкой записи,
+     * поэтому сброс, пришедший во время загрузки, дождётся её и удалит прочитанное значение.
+     * Если загрузчик вернул null, значение не кэшируется.
+     **/
+    public BigDecimal getBalance(String encodedNumber, Function<String, BigDecimal> loader) {
+        return balances.get(encodedNumber, loader);
+    }
+
+    /**
+     * Сбрасывает баланс карты сразу и ещё раз после завершения текущей транзакции,
+     * чтобы параллельное чтение не закэшировало значение, прочитанное до фиксации.
+     **/
+    public void invalidate(String encodedNumber) {
+        balances.invalidate(encodedNumber);
+        afterCompletion(() -> balances.invalidate(encodedNumber));
+    }
+
+    /**
+     * Сбрасывает баланс и соответствие id номеру для изменяемой или удаляемой карты.
+     **/
+    public void invalidateCard(Long id, String encodedNumber) {
+        numbers.invalidate(id);
+        invalidate(encodedNumber);
+        afterCompletion(() -> numbers.invalidate(id));
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.TransferReadDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Ограниченный по размеру кэш ответов на переводы с ключом идемпотентности.
+ * Повторный запрос клиента отвечается из памяти без обращения к базе данных.
+ * Хэш тела запроса входит в ключ кэша, поэтому повтор ключа с другим телом идёт в базу и там отклоняется.
+ * Запись живёт до истечения срока ключа (createdAt + idempotencyKeyTtl), а не дольше строки в таблице.
+ **/
+@Component
+public class TransferIdempotencyCache {
+
+    private final Cache<String, CachedTransfer> cache;
+    private final Duration ttl;
+
+    public TransferIdempotencyCache(TransferProperties transferProperties) {
+        this.ttl = transferProperties.idempotencyKeyTtl();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(transferProperties.idempotencyCacheSize())
+                .expireAfter(Expiry.creating((String key, CachedTransfer value) ->
+                        Duration.between(LocalDateTime.now(), value.expiresAt())))
+                .build();
+    }
+
+    public Optional<TransferReadDto> get(Long userId, String idempotencyKey, String requestHash) {
+        return Optional.ofNullable(cache.getIfPresent(toCacheKey(userId, idempotencyKey, requestHash)))
+                .map(CachedTransfer::transfer);
+    }
+
+    public void put(Long userId, String idempotencyKey, String requestHash, TransferReadDto transferReadDto,
+                    LocalDateTime createdAt) {
+        LocalDateTime expiresAt = createdAt.plus(ttl);
+        if (expiresAt.isAfter(LocalDateTime.now())) {
+            cache.put(toCacheKey(userId, idempotencyKey, requestHash), new CachedTransfer(transferReadDto, expiresAt));
+        }
+    }
+
+    private static String toCacheKey(Long userId, String idempotencyKey, String requestHash) {
+        return userId + ":" + idempotencyKey + ":" + requestHash;
+    }
+
+    private record CachedTransfer(TransferReadDto transfer, LocalDateTime expiresAt) {
+    }
+}
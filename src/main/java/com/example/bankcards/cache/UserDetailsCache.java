@@ -0,0 +1,52 @@
+package com.example.bankcards.cache;
+
+import com.example.bankcards.config.AuthenticationCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш данных пользователей для аутентификации по email.
+ * Наружу отдаётся копия записи: после аутентификации Spring Security стирает пароль у выданного объекта.
+ **/
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(AuthenticationCacheProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.userDetailsCacheSize())
+                .expireAfterWrite(properties.userDetailsTtl())
+                .build();
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        return User.withUserDetails(cache.get(email, loader)).build();
+    }
+
+    /**
+     * Сбрасывает запись сразу и ещё раз после фиксации текущей транзакции,
+     * чтобы параллельная аутентификация не вернула в кэш незафиксированные данные.
+     **/
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(email);
+                }
+            });
+        }
+    }
+}
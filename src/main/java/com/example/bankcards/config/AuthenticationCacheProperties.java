@@ -0,0 +1,20 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэшей аутентификации.
+ * userDetailsTtl и userDetailsCacheSize ограничивают время жизни и число данных пользователей,
+ * загруженных по email; изменение и удаление пользователя сбрасывает его запись сразу.
+ * credentialsTtl и credentialsCacheSize ограничивают кэш успешных проверок пароля,
+ * позволяющий повторным запросам с basic-auth не выполнять BCrypt; 0 отключает кэш.
+ **/
+@ConfigurationProperties(prefix = "bank.security.cache")
+public record AuthenticationCacheProperties(@DefaultValue("5m") Duration userDetailsTtl,
+                                            @DefaultValue("10000") int userDetailsCacheSize,
+                                            @DefaultValue("1m") Duration credentialsTtl,
+                                            @DefaultValue("10000") int credentialsCacheSize) {
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Кэш балансов карт: size - число карт в кэше (0 - кэш выключен),
+ * ttl - срок жизни записи. Сброс выполняется только на экземпляре, проводившем перевод,
+ * поэтому остальные реплики могут отдавать устаревший баланс не дольше ttl.
+ **/
+@ConfigurationProperties(prefix = "bank.card.balance-cache")
+public record BalanceCacheProperties(@DefaultValue("100000") long size,
+                                     @DefaultValue("5s") Duration ttl) {
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Слоты баланса карт: maxCount - наибольшее число слотов, которое администратор может задать карте.
+ **/
+@ConfigurationProperties(prefix = "bank.card.balance-slots")
+public record BalanceSlotProperties(@DefaultValue("64") int maxCount) {
+}
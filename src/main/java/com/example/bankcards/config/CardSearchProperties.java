@@ -0,0 +1,13 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * hashKey - секретный ключ HMAC для колонок last_four_hash и bin_last_four_hash.
+ * У последних четырёх цифр всего 10^4 значений, поэтому хэши защищает только секретность ключа.
+ * Тот же ключ передаётся Liquibase параметром card-search-hash-key для заполнения хэшей существующих карт;
+ * после смены ключа хэши нужно пересчитать.
+ **/
+@ConfigurationProperties(prefix = "bank.card.search")
+public record CardSearchProperties(String hashKey) {
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки выпускаемых токенов.
+ * accessTokenTtl - время жизни токена доступа, refreshTokenTtl - время жизни токена обновления,
+ * по которому POST /api/v1/authentication/refresh выдаёт новую пару токенов без проверки пароля.
+ * verifiedTokenCacheSize - число проверенных токенов доступа, хранимых до истечения их срока; 0 отключает кэш.
+ * revokedTokenCleanupInterval - период удаления истёкших записей об отозванных токенах обновления.
+ **/
+@ConfigurationProperties(prefix = "bank.security.jwt")
+public record JwtProperties(@DefaultValue("5m") Duration accessTokenTtl,
+                            @DefaultValue("7d") Duration refreshTokenTtl,
+                            @DefaultValue("10000") int verifiedTokenCacheSize,
+                            @DefaultValue("1h") Duration revokedTokenCleanupInterval) {
+}
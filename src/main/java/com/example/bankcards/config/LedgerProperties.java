@@ -0,0 +1,21 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Журнал проводок. snapshotInterval и reconciliationInterval - периоды фоновых задач
+ * (schedulingEnabled=false выключает обе), snapshotLag - возраст, после которого проводки
+ * попадают в снимок: время проводки проставляет экземпляр приложения до фиксации транзакции,
+ * поэтому lag должен быть больше самой долгой транзакции перевода и расхождения часов экземпляров.
+ * reconciliationChunkSize - число карт, сверяемых одним запросом.
+ **/
+@ConfigurationProperties(prefix = "bank.ledger")
+public record LedgerProperties(@DefaultValue("true") boolean schedulingEnabled,
+                               @DefaultValue("1h") Duration snapshotInterval,
+                               @DefaultValue("1h") Duration reconciliationInterval,
+                               @DefaultValue("1m") Duration snapshotLag,
+                               @DefaultValue("1000") int reconciliationChunkSize) {
+}
@@ -0,0 +1,38 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+
+/**
+ * Периодические снимки балансов и сверка балансов карт с журналом проводок.
+ **/
+@Slf4j
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "bank.ledger", name = "scheduling-enabled", matchIfMissing = true)
+public class LedgerSchedulingConfiguration {
+
+    private final LedgerService ledgerService;
+    private final LedgerProperties ledgerProperties;
+
+    @Scheduled(fixedDelayString = "${bank.ledger.snapshot-interval:1h}",
+               initialDelayString = "${bank.ledger.snapshot-interval:1h}")
+    public void takeSnapshots() {
+        int snapshots = ledgerService.takeSnapshots(Instant.now().minus(ledgerProperties.snapshotLag()));
+        log.info("Balance snapshots taken for " + snapshots + " cards");
+    }
+
+    @Scheduled(fixedDelayString = "${bank.ledger.reconciliation-interval:1h}",
+               initialDelayString = "${bank.ledger.reconciliation-interval:1h}")
+    public void reconcile() {
+        ledgerService.reconcile();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.service.RefreshTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Периодическая очистка таблицы отозванных токенов обновления вне запросов обмена и отзыва токена.
+ **/
+@Slf4j
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class RefreshTokenSchedulingConfiguration {
+
+    private final RefreshTokenService refreshTokenService;
+
+    @Scheduled(fixedDelayString = "${bank.security.jwt.revoked-token-cleanup-interval:1h}",
+               initialDelayString = "${bank.security.jwt.revoked-token-cleanup-interval:1h}")
+    public void deleteExpiredRevokedTokens() {
+        int deleted = refreshTokenService.deleteExpiredRevokedTokens();
+        log.info("Expired revoked refresh tokens deleted: " + deleted);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ограничение числа одновременно обрабатываемых запросов API в режиме виртуальных потоков.
+ * maxConcurrentRequests - число разрешений (0 - по размеру пула соединений Hikari, больше размера пула нельзя),
+ * acquireTimeout - сколько запрос ждёт разрешения, прежде чем получить 503.
+ **/
+@ConfigurationProperties(prefix = "bank.threads")
+public record RequestConcurrencyProperties(@DefaultValue("0") int maxConcurrentRequests,
+                                           @DefaultValue("1s") Duration acquireTimeout) {
+}
@@ -1,13 +1,15 @@
 package com.example.bankcards.config;
 
 import com.example.bankcards.enumpack.Role;
-import com.example.bankcards.security.RsaKeys;
+import com.example.bankcards.security.CachingJwtDecoder;
+import com.example.bankcards.security.SigningKeys;
 
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,22 +20,32 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-import java.util.UUID;
+import java.util.Objects;
+
+import static com.example.bankcards.service.JwtAccessTokenService.REFRESH_TOKEN_TYPE;
+import static com.example.bankcards.service.JwtAccessTokenService.TOKEN_TYPE_CLAIM;
 
 @EnableMethodSecurity
 @Configuration
 @RequiredArgsConstructor
 public class SecurityConfiguration {
 
-    private final RsaKeys rsaKeys;
+    private final SigningKeys signingKeys;
+    private final JwtProperties jwtProperties;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -41,15 +53,21 @@ public class SecurityConfiguration {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(urlConfig -> urlConfig
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.POST,"/api/v1/users").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/v1/authentication/refresh", "/api/v1/authentication/revoke").permitAll()
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/users/{id}").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.GET, "/api/v1/users").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.GET, "/api/v1/users").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.PUT, "/api/v1/transfers/{id}").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/transfers/{id}").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.POST, "/api/v1/users/{userId}/transfers").hasAuthority(Role.USER.getAuthority())
+                        .requestMatchers(HttpMethod.POST, "/api/v1/users/{userId}/transfers/batch").hasAuthority(Role.USER.getAuthority())
                         .requestMatchers(HttpMethod.GET, "/api/v1/transfers").hasAuthority(Role.ADMIN.getAuthority())
+                        .requestMatchers(HttpMethod.GET, "/api/v1/transfers/export").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.PUT, "/api/v1/cards/{id}").hasAuthority(Role.ADMIN.getAuthority())
+                        .requestMatchers(HttpMethod.PUT, "/api/v1/cards/{id}/balance-slots").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/cards/{id}").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.GET, "/api/v1/cards").hasAuthority(Role.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.POST, "/api/v1/cards").hasAuthority(Role.ADMIN.getAuthority())
@@ -60,27 +78,61 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Декодер токенов доступа: токены обновления (token_type = refresh) для доступа к API не принимаются.
+     * Проверенные токены кэшируются до истечения срока действия.
+     **/
     @Bean
     public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(rsaKeys.rsaPublicKey()).build();
+        JwtDecoder jwtDecoder = createJwtDecoder(
+                new JwtClaimValidator<String>(TOKEN_TYPE_CLAIM, tokenType -> !REFRESH_TOKEN_TYPE.equals(tokenType)));
+        if (jwtProperties.verifiedTokenCacheSize() <= 0) {
+            return jwtDecoder;
+        }
+        return new CachingJwtDecoder(jwtDecoder, jwtProperties.verifiedTokenCacheSize());
     }
 
+    /**
+     * Декодер токенов обновления: принимает только токены с token_type = refresh и jti.
+     **/
     @Bean
-    public JwtEncoder jwtEncoder() {
-        return new NimbusJwtEncoder(jwkSource());
+    public JwtDecoder refreshTokenDecoder() {
+        return createJwtDecoder(new JwtClaimValidator<String>(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE::equals),
+                new JwtClaimValidator<String>(JwtClaimNames.JTI, Objects::nonNull));
     }
 
+    /**
+     * Подписывает токены активным ключом: алгоритм и kid ключа попадают в заголовок токена.
+     **/
     @Bean
-    public JWKSource<SecurityContext> jwkSource() {
-        RSAPublicKey publicKey = rsaKeys.rsaPublicKey();
-        RSAPrivateKey privateKey = rsaKeys.rsaPrivateKey();
-        RSAKey rsaKey = new RSAKey.Builder(publicKey)
-                .privateKey(privateKey)
-                .keyID(UUID.randomUUID().toString())
+    public JwtEncoder jwtEncoder() {
+        NimbusJwtEncoder jwtEncoder = new NimbusJwtEncoder(jwkSource());
+        JwsHeader jwsHeader = JwsHeader.with(SignatureAlgorithm.from(signingKeys.algorithm().getName()))
+                .keyId(signingKeys.activeKid())
                 .build();
-        JWKSet jwkSet = new JWKSet(rsaKey);
-        return new ImmutableJWKSet<>(jwkSet);
+        return parameters -> jwtEncoder.encode(parameters.getJwsHeader() == null
+                ? JwtEncoderParameters.from(jwsHeader, parameters.getClaims())
+                : parameters);
     }
-}
 
+    /**
+     * Текущий и предыдущие ключи: подпись проверяется ключом с kid из заголовка токена,
+     * поэтому токены, выданные до ротации или другим экземпляром приложения, остаются действительными.
+     **/
+    @Bean
+    public JWKSource<SecurityContext> jwkSource() {
+        return new ImmutableJWKSet<>(new JWKSet(signingKeys.keys()));
+    }
 
+    @SafeVarargs
+    private NimbusJwtDecoder createJwtDecoder(OAuth2TokenValidator<Jwt>... validators) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(signingKeys.algorithm(), jwkSource()));
+        // срок действия и остальные утверждения проверяют валидаторы Spring Security
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithValidators(validators));
+        return jwtDecoder;
+    }
+}
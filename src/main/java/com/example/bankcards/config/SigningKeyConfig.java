@@ -0,0 +1,189 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.SigningKeyProperties.Keystore;
+import com.example.bankcards.config.SigningKeyProperties.PemKey;
+import com.example.bankcards.enumpack.SigningAlgorithm;
+import com.example.bankcards.security.SigningKeys;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class SigningKeyConfig {
+
+    /**
+     * Профили, в которых без настроенных ключей допускается временный ключ. В остальных профилях
+     * каждый экземпляр подписывал бы токены своим ключом, и токены не проверялись бы на других экземплярах.
+     **/
+    private static final Profiles TEMPORARY_KEY_PROFILES = Profiles.of("dev", "test");
+
+    private final Environment environment;
+
+    @Bean
+    public SigningKeys signingKeys(SigningKeyProperties properties) {
+        SigningAlgorithm algorithm = properties.algorithm();
+        if (!properties.isConfigured()) {
+            if (!environment.acceptsProfiles(TEMPORARY_KEY_PROFILES)) {
+                throw new IllegalStateException("Signing keys are not configured (bank.security.signing), "
+                                                + "a temporary key is allowed only in dev and test profiles");
+            }
+            log.warn("Signing keys are not configured (bank.security.signing), using a temporary " + algorithm + " key");
+            JWK key = generateKey(algorithm);
+            return new SigningKeys(algorithm.getJwsAlgorithm(), key.getKeyID(), List.of(key));
+        }
+
+        List<JWK> keys = new ArrayList<>();
+        if (properties.keystore() != null) {
+            keys.addAll(loadKeystore(algorithm, properties.keystore()));
+        }
+        properties.pem().forEach(pemKey -> keys.add(loadPem(algorithm, pemKey)));
+
+        JWK activeKey = keys.stream()
+                .filter(key -> key.getKeyID().equals(properties.activeKid()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Active signing key not found: " + properties.activeKid()));
+        if (!activeKey.isPrivate()) {
+            throw new IllegalStateException("Active signing key has no private key: " + properties.activeKid());
+        }
+        long distinctKids = keys.stream().map(JWK::getKeyID).distinct().count();
+        if (distinctKids != keys.size()) {
+            throw new IllegalStateException("Duplicate signing key id in bank.security.signing");
+        }
+        log.info("Loaded " + algorithm + " signing keys " + keys.stream().map(JWK::getKeyID).toList()
+                 + ", active " + activeKey.getKeyID());
+
+        return new SigningKeys(algorithm.getJwsAlgorithm(), activeKey.getKeyID(), List.copyOf(keys));
+    }
+
+    private static List<JWK> loadKeystore(SigningAlgorithm algorithm, Keystore keystore) {
+        char[] password = keystore.password() == null ? new char[0] : keystore.password().toCharArray();
+        try (InputStream inputStream = keystore.location().getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance(keystore.type());
+            keyStore.load(inputStream, password);
+
+            List<JWK> keys = new ArrayList<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate == null || !algorithm.getKeyAlgorithm().equals(certificate.getPublicKey().getAlgorithm())) {
+                    continue;
+                }
+                PrivateKey privateKey = keyStore.isKeyEntry(alias)
+                        ? (PrivateKey) keyStore.getKey(alias, password)
+                        : null;
+                keys.add(toJwk(algorithm, alias, certificate.getPublicKey(), privateKey));
+            }
+            return keys;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to load signing keystore " + keystore.location(), e);
+        }
+    }
+
+    private static JWK loadPem(SigningAlgorithm algorithm, PemKey pemKey) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getKeyAlgorithm());
+            PrivateKey privateKey = pemKey.privateKey() == null
+                    ? null
+                    : keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(pemKey.privateKey())));
+            PublicKey publicKey = pemKey.publicKey() == null
+                    ? derivePublicKey(pemKey.kid(), keyFactory, privateKey)
+                    : keyFactory.generatePublic(new X509EncodedKeySpec(readPem(pemKey.publicKey())));
+
+            return toJwk(algorithm, pemKey.kid(), publicKey, privateKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to read " + algorithm + " signing key " + pemKey.kid(), e);
+        }
+    }
+
+    private static byte[] readPem(Resource resource) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            String content = new String(inputStream.readAllBytes(), StandardCharsets.US_ASCII)
+                    .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                    .replaceAll("\\s", "");
+            return Base64.getDecoder().decode(content);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to read signing key " + resource, e);
+        }
+    }
+
+    private static PublicKey derivePublicKey(String kid, KeyFactory keyFactory, PrivateKey privateKey)
+            throws GeneralSecurityException {
+        if (!(privateKey instanceof RSAPrivateCrtKey crtKey)) {
+            throw new IllegalStateException("Public key is required for signing key " + kid);
+        }
+        return keyFactory.generatePublic(new RSAPublicKeySpec(crtKey.getModulus(), crtKey.getPublicExponent()));
+    }
+
+    private static JWK toJwk(SigningAlgorithm algorithm, String kid, PublicKey publicKey, PrivateKey privateKey) {
+        if (algorithm == SigningAlgorithm.ES256) {
+            ECKey.Builder builder = new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey)
+                    .keyID(kid)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm.getJwsAlgorithm());
+            if (privateKey != null) {
+                builder.privateKey((ECPrivateKey) privateKey);
+            }
+            return builder.build();
+        }
+        RSAKey.Builder builder = new RSAKey.Builder((RSAPublicKey) publicKey)
+                .keyID(kid)
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(algorithm.getJwsAlgorithm());
+        if (privateKey != null) {
+            builder.privateKey((RSAPrivateKey) privateKey);
+        }
+        return builder.build();
+    }
+
+    private static JWK generateKey(SigningAlgorithm algorithm) {
+        KeyPair keyPair;
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+            if (algorithm == SigningAlgorithm.ES256) {
+                keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                keyPairGenerator.initialize(2048);
+            }
+            keyPair = keyPairGenerator.generateKeyPair();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        return toJwk(algorithm, UUID.randomUUID().toString(), keyPair.getPublic(), keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.enumpack.SigningAlgorithm;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+import java.util.List;
+
+/**
+ * Ключи подписи токенов, общие для всех экземпляров приложения.
+ * algorithm - алгоритм подписи (RS256 по умолчанию или ES256), все ключи набора должны ему соответствовать.
+ * Ключи загружаются из хранилища (каждый псевдоним - отдельный kid) и/или из PEM файлов.
+ * activeKid - ключ, которым подписываются новые токены, он должен содержать закрытую часть;
+ * остальные ключи используются только для проверки подписи ранее выданных токенов,
+ * поэтому при ротации прежний ключ оставляется в наборе до истечения его токенов.
+ * Без настроенных ключей приложение не запускается; временный ключ создаётся только в профилях dev и test.
+ **/
+@ConfigurationProperties(prefix = "bank.security.signing")
+public record SigningKeyProperties(@DefaultValue("RS256") SigningAlgorithm algorithm,
+                                   String activeKid,
+                                   Keystore keystore,
+                                   @DefaultValue List<PemKey> pem) {
+
+    public boolean isConfigured() {
+        return keystore != null || !pem.isEmpty();
+    }
+
+    public record Keystore(Resource location,
+                           String password,
+                           @DefaultValue("PKCS12") String type) {
+    }
+
+    /**
+     * publicKey - X.509 (BEGIN PUBLIC KEY), privateKey - PKCS#8 (BEGIN PRIVATE KEY).
+     * Открытый RSA ключ можно не указывать, если задан закрытый; для EC ключа нужны оба.
+     **/
+    public record PemKey(String kid,
+                         Resource publicKey,
+                         Resource privateKey) {
+    }
+}
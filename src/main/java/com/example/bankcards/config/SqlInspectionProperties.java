@@ -0,0 +1,14 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Инспекция SQL запросов: slowQueryThreshold - запросы дольше порога пишутся в лог
+ * без значений параметров (0 - не логировать).
+ **/
+@ConfigurationProperties(prefix = "bank.sql")
+public record SqlInspectionProperties(@DefaultValue("200ms") Duration slowQueryThreshold) {
+}
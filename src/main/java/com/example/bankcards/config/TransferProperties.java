@@ -0,0 +1,24 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.enumpack.TransferMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки проведения переводов.
+ * PESSIMISTIC блокирует строки карт (SELECT ... FOR UPDATE) в порядке возрастания id,
+ * OPTIMISTIC проверяет версию карты и повторяет перевод не более optimisticMaxAttempts раз,
+ * ATOMIC списывает и зачисляет сумму условными UPDATE без загрузки карт.
+ * idempotencyCacheSize ограничивает число ответов на переводы, хранимых в памяти для повторных запросов.
+ * idempotencyKeyTtl - срок, в течение которого повтор запроса с тем же ключом возвращает сохранённый перевод;
+ * ключи старше этого срока удаляются фоновой задачей раз в idempotencyKeyCleanupInterval.
+ **/
+@ConfigurationProperties(prefix = "bank.transfer")
+public record TransferProperties(@DefaultValue("PESSIMISTIC") TransferMode mode,
+                                 @DefaultValue("5") int optimisticMaxAttempts,
+                                 @DefaultValue("10000") int idempotencyCacheSize,
+                                 @DefaultValue("24h") Duration idempotencyKeyTtl,
+                                 @DefaultValue("1h") Duration idempotencyKeyCleanupInterval) {
+}
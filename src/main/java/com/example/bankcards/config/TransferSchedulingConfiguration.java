@@ -0,0 +1,27 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.service.TransferService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Периодическое удаление истёкших ключей идемпотентности переводов.
+ **/
+@Slf4j
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class TransferSchedulingConfiguration {
+
+    private final TransferService transferService;
+
+    @Scheduled(fixedDelayString = "${bank.transfer.idempotency-key-cleanup-interval:1h}",
+               initialDelayString = "${bank.transfer.idempotency-key-cleanup-interval:1h}")
+    public void deleteExpiredIdempotencyKeys() {
+        int deleted = transferService.deleteExpiredIdempotencyKeys();
+        log.info("Expired idempotency keys deleted: " + deleted);
+    }
+}
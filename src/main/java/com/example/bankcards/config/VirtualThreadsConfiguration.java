@@ -0,0 +1,49 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Режим виртуальных потоков (spring.threads.virtual.enabled=true на Java 21, профиль virtual-threads):
+ * запросы и вызываемые из них транзакционные методы сервисов выполняются на виртуальных потоках,
+ * а число одновременно обрабатываемых запросов API ограничено размером пула соединений.
+ **/
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(RequestConcurrencyProperties properties,
+                                                                                 DataSource dataSource) throws SQLException {
+        int poolSize = getMaximumPoolSize(dataSource);
+        int permits = properties.maxConcurrentRequests() > 0 ? properties.maxConcurrentRequests() : poolSize;
+        if (permits > poolSize) {
+            throw new IllegalStateException("bank.threads.max-concurrent-requests (" + permits
+                                            + ") exceeds the connection pool size (" + poolSize + ")");
+        }
+        log.info("Virtual threads enabled, API concurrency limited to " + permits + " requests");
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(permits, properties.acquireTimeout()));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static int getMaximumPoolSize(DataSource dataSource) throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            throw new IllegalStateException("Virtual threads mode requires a Hikari connection pool");
+        }
+        return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.LoginDto;
+import com.example.bankcards.dto.RefreshTokenDto;
 import com.example.bankcards.security.AccessToken;
 import com.example.bankcards.security.AuthenticationToken;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -21,4 +24,15 @@ public class AuthenticationController {
     public AccessToken getToken(@RequestBody @Validated LoginDto loginDto) {
         return authenticationToken.authenticate(loginDto);
     }
+
+    @PostMapping("/refresh")
+    public AccessToken refreshToken(@RequestBody @Validated RefreshTokenDto refreshTokenDto) {
+        return authenticationToken.refresh(refreshTokenDto);
+    }
+
+    @PostMapping("/revoke")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void revokeToken(@RequestBody @Validated RefreshTokenDto refreshTokenDto) {
+        authenticationToken.revoke(refreshTokenDto);
+    }
 }
@@ -3,12 +3,13 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.CardCreateEditDto;
 import com.example.bankcards.dto.CardReadDto;
 import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.CardFilter;
 import com.example.bankcards.service.CardService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -35,9 +36,11 @@ public class CardRestController {
     @GetMapping("/cards")
     public PageResponse<CardReadDto> findAll(CardFilter cardFilter,
                                              @RequestParam(value = "page", defaultValue = "0") int page,
-                                             @RequestParam(value = "size", defaultValue = "20") int size) {
+                                             @RequestParam(value = "size", defaultValue = "20") int size,
+                                             @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal,
+                                             @RequestParam(value = "estimatedTotal", defaultValue = "false") boolean estimatedTotal) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<CardReadDto> pageResult = cardService.findAll(cardFilter, pageable);
+        Slice<CardReadDto> pageResult = cardService.findAll(cardFilter, pageable, TotalMode.of(withTotal, estimatedTotal));
         return PageResponse.of(pageResult);
     }
 
@@ -45,9 +48,10 @@ public class CardRestController {
     public PageResponse<CardReadDto> findAllByUserId(@PathVariable("userId") Long id,
                                              CardFilter cardFilter,
                                              @RequestParam(value = "page", defaultValue = "0") int page,
-                                             @RequestParam(value = "size", defaultValue = "20") int size) {
+                                             @RequestParam(value = "size", defaultValue = "20") int size,
+                                             @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<CardReadDto> pageResult = cardService.findAllByUserId(id, pageable, cardFilter);
+        Slice<CardReadDto> pageResult = cardService.findAllByUserId(id, pageable, cardFilter, TotalMode.of(withTotal, false));
         return PageResponse.of(pageResult);
     }
 
@@ -72,6 +76,11 @@ public class CardRestController {
         return cardService.update(id, cardCreateEditDto);
     }
 
+    @PutMapping("/cards/{id}/balance-slots")
+    public CardReadDto setBalanceSlots(@PathVariable("id") Long id, @RequestParam("count") int count) {
+        return cardService.setBalanceSlots(id, count);
+    }
+
     @PutMapping("/cards/{id}/blocked")
     public CardReadDto blockingCard(@PathVariable("id") Long id) {
         return cardService.blockingCard(id);
@@ -1,14 +1,24 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CursorPageResponse;
 import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.dto.TransferBatchResultDto;
 import com.example.bankcards.dto.TransferCreateEditDto;
 import com.example.bankcards.dto.TransferReadDto;
+import com.example.bankcards.enumpack.ExportFormat;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.TransferFilter;
+import com.example.bankcards.service.TransferExportService;
 import com.example.bankcards.service.TransferService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,46 +27,87 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1")
 public class TransferRestController {
 
     private final TransferService transferService;
+    private final TransferExportService transferExportService;
 
     @GetMapping("/transfers")
     public PageResponse<TransferReadDto> findAll(TransferFilter transferFilter,
                                                  @RequestParam(value = "page", defaultValue = "0") int page,
-                                                 @RequestParam(value = "size", defaultValue = "20") int size) {
+                                                 @RequestParam(value = "size", defaultValue = "20") int size,
+                                                 @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal,
+                                                 @RequestParam(value = "estimatedTotal", defaultValue = "false") boolean estimatedTotal) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<TransferReadDto> pageResult = transferService.findAll(transferFilter, pageable);
+        Slice<TransferReadDto> pageResult = transferService.findAll(transferFilter, pageable, TotalMode.of(withTotal, estimatedTotal));
         return PageResponse.of(pageResult);
     }
 
     @GetMapping("/users/{userId}/transfers")
     public PageResponse<TransferReadDto> findAllByUserId(@PathVariable("userId") Long id,
                                                  @RequestParam(value = "page", defaultValue = "0") int page,
-                                                 @RequestParam(value = "size", defaultValue = "20") int size) {
+                                                 @RequestParam(value = "size", defaultValue = "20") int size,
+                                                 @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<TransferReadDto> pageResult = transferService.findAllByUserId(id, pageable);
+        Slice<TransferReadDto> pageResult = transferService.findAllByUserId(id, pageable, TotalMode.of(withTotal, false));
         return PageResponse.of(pageResult);
     }
 
+    @GetMapping(value = "/users/{userId}/transfers", params = "after")
+    public CursorPageResponse<TransferReadDto> findAllByUserIdAfter(@PathVariable("userId") Long id,
+                                                                    @RequestParam(value = "after", required = false) String after,
+                                                                    @RequestParam(value = "size", defaultValue = "20") int size) {
+        return transferService.findAllByUserIdAfter(id, after, size);
+    }
+
+    @GetMapping("/transfers/export")
+    public void export(@RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=transfers." + format.getFileExtension());
+        transferExportService.export(format, response.getOutputStream());
+    }
+
     @GetMapping("/transfers/{id}")
     public TransferReadDto findById(@PathVariable("id") Long id) {
         return transferService.findById(id);
     }
 
+    /**
+     * Ключ идемпотентности необязателен, но если передан - от 1 до 64 символов без пробелов:
+     * пустой ключ совпал бы у несвязанных запросов, и они получали бы чужой перевод.
+     **/
     @PostMapping("/users/{userId}/transfers")
     @ResponseStatus(HttpStatus.CREATED)
-    public TransferReadDto create(@RequestBody @Validated TransferCreateEditDto transferCreateEditDto) {
-        return transferService.create(transferCreateEditDto);
+    public TransferReadDto create(@RequestHeader(value = "Idempotency-Key", required = false)
+                                  @Size(max = 64) @Pattern(regexp = "\\S+") String idempotencyKey,
+                                  @RequestBody @Validated TransferCreateEditDto transferCreateEditDto) {
+        return transferService.create(transferCreateEditDto, idempotencyKey);
+    }
+
+    /**
+     * Пакет ограничен 100 переводами: все его карты блокируются одним запросом в одной транзакции.
+     **/
+    @PostMapping("/users/{userId}/transfers/batch")
+    public List<TransferBatchResultDto> createBatch(@PathVariable("userId") Long userId,
+                                                    @RequestBody @Size(max = 100) List<@Valid TransferCreateEditDto> transferCreateEditDtos) {
+        return transferService.createBatch(userId, transferCreateEditDtos);
     }
 
     @PutMapping("/transfers/{id}")
@@ -3,12 +3,13 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserCreateEditDto;
 import com.example.bankcards.dto.UserReadDto;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.UserFilter;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -33,9 +34,11 @@ public class UserRestController {
     @GetMapping
     public PageResponse<UserReadDto> findAll(UserFilter userFilter,
                                              @RequestParam(value = "page", defaultValue = "0") int page,
-                                             @RequestParam(value = "size", defaultValue = "20") int size) {
+                                             @RequestParam(value = "size", defaultValue = "20") int size,
+                                             @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal,
+                                             @RequestParam(value = "estimatedTotal", defaultValue = "false") boolean estimatedTotal) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<UserReadDto> pageResult = userService.findAll(userFilter, pageable);
+        Slice<UserReadDto> pageResult = userService.findAll(userFilter, pageable, TotalMode.of(withTotal, estimatedTotal));
         return PageResponse.of(pageResult);
     }
 
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class CursorPageResponse<T> {
+
+    List<T> content;
+
+    /**
+     * Курсор следующей страницы или null, если страница последняя.
+     **/
+    String nextCursor;
+}
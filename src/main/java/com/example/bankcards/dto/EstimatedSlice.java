@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * Срез с оценкой общего количества по статистике таблицы. Признак следующей страницы берётся
+ * из самой выборки, а не вычисляется по оценке, которая может быть занижена (устаревшая статистика).
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EstimatedSlice<T> extends SliceImpl<T> {
+
+    private final long estimatedTotal;
+
+    public EstimatedSlice(Slice<T> slice, long estimatedTotal) {
+        super(slice.getContent(), slice.getPageable(), slice.hasNext());
+        this.estimatedTotal = estimatedTotal;
+    }
+}
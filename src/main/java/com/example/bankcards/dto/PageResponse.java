@@ -2,6 +2,7 @@ package com.example.bankcards.dto;
 
 import lombok.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -12,9 +13,14 @@ public class PageResponse<T> {
 
     Metadata metadata;
 
-    public static <T> PageResponse<T> of(Page<T> page) {
-        Metadata metadata = new Metadata(page.getNumber(), page.getSize(), page.getTotalElements());
-        return new PageResponse<>(page.getContent(), metadata);
+    public static <T> PageResponse<T> of(Slice<T> slice) {
+        Long totalElement = slice instanceof Page<T> page ? page.getTotalElements() : null;
+        Long estimatedTotalElement = slice instanceof EstimatedSlice<T> estimatedSlice
+                ? estimatedSlice.getEstimatedTotal()
+                : null;
+        Metadata metadata = new Metadata(slice.getNumber(), slice.getSize(), totalElement, estimatedTotalElement,
+                slice.hasNext());
+        return new PageResponse<>(slice.getContent(), metadata);
     }
 
     @Value
@@ -22,6 +28,8 @@ public class PageResponse<T> {
 
         int page;
         int size;
-        long totalElement;
+        Long totalElement;
+        Long estimatedTotalElement;
+        boolean hasNext;
     }
 }
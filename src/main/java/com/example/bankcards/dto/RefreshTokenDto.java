@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class RefreshTokenDto {
+
+    @NotBlank
+    String refreshToken;
+
+    @JsonCreator
+    public RefreshTokenDto(@JsonProperty("refreshToken") String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@AllArgsConstructor
+@Value
+public class TransferBatchResultDto {
+
+    int index;
+    boolean success;
+    TransferReadDto transfer;
+    String reason;
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Баланс карты по проводкам, созданным раньше entriesBefore. Актуальный баланс по журналу -
+ * снимок карты с наибольшим entriesBefore плюс сумма её проводок, созданных не раньше этого момента.
+ * Граница снимка задаётся временем, а не id: id выдаются блоками по экземплярам приложения
+ * и не возрастают в порядке создания проводок.
+ **/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "balance_snapshot")
+public class BalanceSnapshot implements BaseEntity<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshot_seq")
+    @SequenceGenerator(name = "balance_snapshot_seq", sequenceName = "balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "card_id")
+    private Long cardId;
+
+    private BigDecimal balance;
+
+    @Column(name = "entries_before")
+    private Instant entriesBefore;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
@@ -11,6 +11,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,12 +31,17 @@ import java.util.Objects;
 public class Card implements BaseEntity<Long>{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_seq")
+    @SequenceGenerator(name = "card_seq", sequenceName = "card_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
     private String number;
 
+    private String lastFourHash;
+
+    private String binLastFourHash;
+
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -46,6 +54,29 @@ public class Card implements BaseEntity<Long>{
 
     private BigDecimal balance;
 
+    /**
+     * Число слотов баланса (card_balance_slot), в которые идут зачисления на карту. 0 - зачисления идут в balance.
+     **/
+    @Column(name = "balance_slots")
+    private int balanceSlots;
+
+    /**
+     * Сумма слотов баланса. Не хранится в card и загружается BalanceSlotService только для карт
+     * с balanceSlots > 0 там, где нужен полный баланс; у остальных карт null.
+     **/
+    @Transient
+    private BigDecimal slotBalance;
+
+    @Version
+    private Long version;
+
+    /**
+     * Полный баланс карты: основной баланс и зачисления, накопленные в слотах.
+     **/
+    public BigDecimal getTotalBalance() {
+        return slotBalance == null ? balance : balance.add(slotBalance);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,40 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Слот баланса карты: отдельная строка, в которую зачисляются переводы на карту,
+ * чтобы параллельные зачисления не ждали блокировки одной строки card.
+ **/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "card_balance_slot")
+public class CardBalanceSlot implements BaseEntity<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_balance_slot_seq")
+    @SequenceGenerator(name = "card_balance_slot_seq", sequenceName = "card_balance_slot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "card_id")
+    private Long cardId;
+
+    private int slot;
+
+    private BigDecimal balance;
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.enumpack.LedgerEntryType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Проводка по карте: положительная сумма - зачисление, отрицательная - списание.
+ * Записи только добавляются. Перевод даёт две проводки с одним transfer_id,
+ * начальный баланс и ручные изменения баланса администратором - проводки без перевода.
+ * Внешних ключей нет, чтобы удаление карты или перевода не стирало историю.
+ **/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "ledger_entry")
+public class LedgerEntry implements BaseEntity<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Column(name = "transfer_id")
+    private Long transferId;
+
+    @Enumerated(EnumType.STRING)
+    private LedgerEntryType type;
+
+    private BigDecimal amount;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
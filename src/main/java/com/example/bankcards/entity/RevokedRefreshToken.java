@@ -0,0 +1,32 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Отозванный или уже использованный токен обновления (jti).
+ * Запись нужна только до истечения срока действия самого токена.
+ **/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "revoked_refresh_token")
+public class RevokedRefreshToken implements BaseEntity<String> {
+
+    @Id
+    @Column(name = "token_id")
+    private String id;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "transfer_idempotency_key")
+public class TransferIdempotencyKey implements BaseEntity<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_idempotency_key_seq")
+    @SequenceGenerator(name = "transfer_idempotency_key_seq", sequenceName = "transfer_idempotency_key_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 тела запроса: повтор ключа с другими картами или суммой отклоняется.
+     **/
+    @Column(name = "request_hash")
+    private String requestHash;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "transfer_id")
+    private Transfer transfer;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransferIdempotencyKey that = (TransferIdempotencyKey) o;
+        return Objects.equals(userId, that.userId)
+               && Objects.equals(idempotencyKey, that.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, idempotencyKey);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferIdempotencyKey{" +
+               "userId=" + userId +
+               ", idempotencyKey='" + idempotencyKey + '\'' +
+               ", createdAt=" + createdAt +
+               '}';
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.enumpack;
+
+public enum LedgerEntryType {
+    OPENING, TRANSFER, ADJUSTMENT
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.enumpack;
+
+public enum SearchMode {
+    SUBSTRING, PREFIX
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.enumpack;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Алгоритм подписи токенов и тип ключа для него.
+ * ES256 (P-256) даёт более короткие ключи и подписи, но на JDK 17 проверка его подписи заметно медленнее RS256
+ * (см. JwtSigningBenchmark), поэтому повторные проверки снимает кэш проверенных токенов, а не выбор алгоритма.
+ **/
+@Getter
+@RequiredArgsConstructor
+public enum SigningAlgorithm {
+    RS256(JWSAlgorithm.RS256, "RSA"),
+    ES256(JWSAlgorithm.ES256, "EC");
+
+    private final JWSAlgorithm jwsAlgorithm;
+    private final String keyAlgorithm;
+}
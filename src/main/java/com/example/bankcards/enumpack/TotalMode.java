@@ -0,0 +1,17 @@
+package com.example.bankcards.enumpack;
+
+/**
+ * Способ подсчёта общего количества элементов для постраничных ответов:
+ * EXACT - отдельный count(*), NONE - без подсчёта (Slice),
+ * ESTIMATED - оценка из статистики PostgreSQL (pg_class.reltuples) для выборок без фильтра.
+ **/
+public enum TotalMode {
+    EXACT, NONE, ESTIMATED;
+
+    public static TotalMode of(boolean withTotal, boolean estimatedTotal) {
+        if (!withTotal) {
+            return NONE;
+        }
+        return estimatedTotal ? ESTIMATED : EXACT;
+    }
+}
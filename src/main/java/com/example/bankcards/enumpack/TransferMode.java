@@ -0,0 +1,5 @@
+package com.example.bankcards.enumpack;
+
+public enum TransferMode {
+    PESSIMISTIC, OPTIMISTIC, ATOMIC
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.enumpack;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Причина отказа в переводе, tag - значение тега outcome в метриках.
+ **/
+@Getter
+@RequiredArgsConstructor
+public enum TransferRejection {
+    INSUFFICIENT_FUNDS("insufficient_funds"),
+    CARD_EXPIRED("expired"),
+    CARD_BLOCKED("blocked"),
+    SAME_CARD("same_card");
+
+    private final String tag;
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+/**
+ * Ключ идемпотентности повторно использован с другим телом запроса. Обрабатывается как конфликт (409).
+ **/
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
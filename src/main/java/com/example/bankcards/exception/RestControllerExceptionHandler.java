@@ -4,9 +4,11 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.time.LocalDateTime;
 
@@ -40,10 +42,37 @@ public class RestControllerExceptionHandler {
                 .body(errorResponseDto);
     }
 
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ErrorResponseDto> handleAuthenticationException(AuthenticationException e) {
+        log.warn("Handle AuthenticationException: " + e.getMessage());
+        ErrorResponseDto errorResponseDto = new ErrorResponseDto(
+                "Unauthorized",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .body(errorResponseDto);
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<ErrorResponseDto> handleIdempotencyKeyConflictException(IdempotencyKeyConflictException e) {
+        log.warn("Handle IdempotencyKeyConflictException: " + e.getMessage());
+        ErrorResponseDto errorResponseDto = new ErrorResponseDto(
+                "Conflict",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(errorResponseDto);
+    }
+
     @ExceptionHandler(exception = {
             IllegalArgumentException.class,
             IllegalStateException.class,
-            MethodArgumentNotValidException.class
+            MethodArgumentNotValidException.class,
+            HandlerMethodValidationException.class
     })
     public ResponseEntity<ErrorResponseDto> handleBadRequest(Exception e) {
         log.error("Handle BadRequest", e);
@@ -0,0 +1,19 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.enumpack.TransferRejection;
+import lombok.Getter;
+
+/**
+ * Перевод отклонён по бизнес-правилу. Как и прежде обрабатывается как неверный запрос (400),
+ * а причина используется в метриках.
+ **/
+@Getter
+public class TransferRejectedException extends IllegalArgumentException {
+
+    private final TransferRejection rejection;
+
+    public TransferRejectedException(TransferRejection rejection, String message) {
+        super(message);
+        this.rejection = rejection;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.filter;
 
+import com.example.bankcards.enumpack.SearchMode;
 import lombok.Builder;
 import lombok.Value;
 
@@ -15,4 +16,5 @@ public class UserFilter {
     String email;
     LocalDate birthDate;
     String passportNumber;
+    SearchMode searchMode;
 }
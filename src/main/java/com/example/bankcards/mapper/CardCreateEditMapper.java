@@ -5,6 +5,7 @@ import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.Base64Codec;
+import com.example.bankcards.util.CardNumberHash;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -15,6 +16,7 @@ import java.util.Optional;
 public class CardCreateEditMapper implements Mapper<CardCreateEditDto, Card> {
 
     private final UserRepository userRepository;
+    private final CardNumberHash cardNumberHash;
 
     @Override
     public Card map(CardCreateEditDto cardCreateEditDto) {
@@ -31,6 +33,8 @@ public class CardCreateEditMapper implements Mapper<CardCreateEditDto, Card> {
 
     private void copy(CardCreateEditDto cardCreateEditDto, Card card) {
         card.setNumber(Base64Codec.encodeCardNumber(cardCreateEditDto.getNumber()));
+        card.setLastFourHash(cardNumberHash.hashLastFour(cardCreateEditDto.getNumber()));
+        card.setBinLastFourHash(cardNumberHash.hashBinLastFour(cardCreateEditDto.getNumber()));
         card.setUser(getUser(cardCreateEditDto.getUserId()));
         card.setExpirationDate(cardCreateEditDto.getExpirationDate());
         card.setStatus(cardCreateEditDto.getStatus());
@@ -29,7 +29,7 @@ public class CardReadMapper implements Mapper<Card, CardReadDto> {
                 userReadDto,
                 card.getExpirationDate(),
                 card.getStatus(),
-                card.getBalance()
+                card.getTotalBalance()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
+import com.example.bankcards.exception.TransferRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.experimental.UtilityClass;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.function.Supplier;
+
+/**
+ * Таймеры операций с тегом outcome: success или причина отказа.
+ * Число измерений таймера по каждому outcome даёт долю отказов, гистограмма - p99 задержки.
+ **/
+@UtilityClass
+public class OperationMetrics {
+
+    public static final String TRANSFER_CREATE = "bank.transfer.create";
+    public static final String CARD_BLOCKING = "bank.card.blocking";
+    public static final String AUTHENTICATION = "bank.authentication";
+
+    public static final String OUTCOME_TAG = "outcome";
+    public static final String SUCCESS = "success";
+
+    public static <T> T record(MeterRegistry meterRegistry, String name, Supplier<T> operation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = SUCCESS;
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(name, OUTCOME_TAG, outcome));
+        }
+    }
+
+    static String outcome(RuntimeException e) {
+        if (e instanceof TransferRejectedException transferRejectedException) {
+            return transferRejectedException.getRejection().getTag();
+        } else if (e instanceof IdempotencyKeyConflictException) {
+            return "idempotency_conflict";
+        } else if (e instanceof EntityNotFoundException) {
+            return "not_found";
+        } else if (e instanceof BadCredentialsException) {
+            return "bad_credentials";
+        } else if (e instanceof AuthenticationException) {
+            return "unauthorized";
+        } else if (e instanceof IllegalStateException) {
+            return "conflict";
+        } else if (e instanceof IllegalArgumentException) {
+            return "invalid";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Считает выполненные через DataSource запросы в статистику текущего HTTP запроса
+ * и пишет в лог запросы дольше порога. Значения параметров в лог не попадают,
+ * строковые и числовые литералы в тексте запроса заменяются на ?.
+ **/
+@Slf4j
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    private final long slowQueryThresholdMillis;
+
+    public SqlStatementListener(Duration slowQueryThreshold) {
+        this.slowQueryThresholdMillis = slowQueryThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStatementStats.record(queryInfoList.size(), execInfo.getElapsedTime());
+        if (slowQueryThresholdMillis > 0 && execInfo.getElapsedTime() >= slowQueryThresholdMillis) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                log.warn("Slow query (" + execInfo.getElapsedTime() + " ms"
+                         + (execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "") + "): "
+                         + redact(queryInfo.getQuery()));
+            }
+        }
+    }
+
+    static String redact(String query) {
+        return LITERAL.matcher(query.replaceAll("\\s+", " ").strip()).replaceAll("?");
+    }
+}
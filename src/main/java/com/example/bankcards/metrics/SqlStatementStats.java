@@ -0,0 +1,34 @@
+package com.example.bankcards.metrics;
+
+import lombok.Getter;
+
+/**
+ * Число SQL запросов и суммарное время их выполнения в рамках текущего HTTP запроса.
+ * Привязывается к потоку обработки запроса фильтром SqlStatementMetricsFilter.
+ **/
+@Getter
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long elapsedMillis;
+
+    static SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void finish() {
+        CURRENT.remove();
+    }
+
+    static void record(int statements, long elapsedMillis) {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statementCount += statements;
+            stats.elapsedMillis += elapsedMillis;
+        }
+    }
+}
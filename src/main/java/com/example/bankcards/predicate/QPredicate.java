@@ -27,6 +27,10 @@ public class QPredicate {
         return this;
     }
 
+    public boolean isEmpty() {
+        return predicates.isEmpty();
+    }
+
     public Predicate buildAnd() {
         return Optional.ofNullable(ExpressionUtils.allOf(predicates))
                 .orElseGet(() -> Expressions.asBoolean(true).isTrue());
@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    /**
+     * Добавляет новый снимок для каждой карты, у которой после её последнего снимка есть проводки,
+     * созданные раньше before. Возвращает число добавленных снимков.
+     **/
+    @Modifying
+    @Query(value = "INSERT INTO balance_snapshot (id, card_id, balance, entries_before, created_at) " +
+                   "SELECT nextval('balance_snapshot_seq'), t.card_id, t.balance, :before, :createdAt " +
+                   "FROM (SELECT e.card_id AS card_id, COALESCE(MAX(s.balance), 0) + SUM(e.amount) AS balance " +
+                   "FROM ledger_entry e " +
+                   "LEFT JOIN balance_snapshot s ON s.id = (SELECT bs.id FROM balance_snapshot bs " +
+                   "WHERE bs.card_id = e.card_id ORDER BY bs.entries_before DESC, bs.id DESC LIMIT 1) " +
+                   "WHERE e.created_at >= COALESCE(s.entries_before, e.created_at) AND e.created_at < :before " +
+                   "GROUP BY e.card_id) t", nativeQuery = true)
+    int takeSnapshots(@Param("before") Instant before, @Param("createdAt") Instant createdAt);
+}
@@ -0,0 +1,45 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface CardBalanceSlotRepository extends JpaRepository<CardBalanceSlot, Long> {
+
+    /**
+     * Зачисляет сумму в слот random mod balanceSlots активной карты пользователя, не блокируя строку карты.
+     * Возвращает 0, если карта не найдена, не активна или её баланс не разбит на слоты.
+     **/
+    @Modifying
+    @Query(value = "update CardBalanceSlot s set s.balance = s.balance + :sum " +
+                   "where exists (select c.id from Card c where c.id = s.cardId " +
+                   "and c.number = :number and c.user.id = :userId " +
+                   "and c.status = com.example.bankcards.enumpack.Status.ACTIVE " +
+                   "and c.balanceSlots > 0 and s.slot = mod(:random, c.balanceSlots))")
+    int credit(String number, Long userId, BigDecimal sum, int random);
+
+    /**
+     * Находит и блокирует слоты карты в порядке номеров слотов.
+     **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select s from CardBalanceSlot s where s.cardId = :cardId order by s.slot")
+    List<CardBalanceSlot> findAllForUpdateByCardId(Long cardId);
+
+    @Query(value = "select s.cardId as cardId, sum(s.balance) as balance from CardBalanceSlot s " +
+                   "where s.cardId in :cardIds group by s.cardId")
+    List<SlotBalance> findSlotBalancesByCardIdIn(Collection<Long> cardIds);
+
+    interface SlotBalance {
+
+        Long getCardId();
+
+        BigDecimal getBalance();
+    }
+}
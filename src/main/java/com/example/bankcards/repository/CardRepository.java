@@ -2,23 +2,143 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
 import com.querydsl.core.types.Predicate;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CardRepository extends JpaRepository<Card, Long>, QuerydslPredicateExecutor<Card> {
 
     /**
-     * Находит все карты по id пользователя,
-     * упорядоченные по дате окончания срока в обратном порядке.
+     * Возвращает оценку количества строк таблицы card из статистики PostgreSQL (pg_class.reltuples)
+     * без полного сканирования. Значение меньше нуля означает, что статистика ещё не собиралась.
      **/
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = to_regclass('card')",
+           nativeQuery = true)
+    Long estimateRowCount();
+
+    /**
+     * Находит страницу карт по условию вместе с владельцами одним запросом,
+     * чтобы CardReadMapper не догружал пользователя для каждой карты.
+     **/
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Card> findAll(Predicate predicate, Pageable pageable);
+
+    /**
+     * Возвращает номер и полный баланс карты (вместе со слотами) без загрузки сущности и её владельца.
+     **/
+    @Query(value = "select c.number as number, c.balance + " +
+                   "coalesce((select sum(s.balance) from CardBalanceSlot s where s.cardId = c.id), 0) as balance " +
+                   "from Card c where c.id = :id")
+    Optional<CardBalance> findBalanceById(Long id);
+
+    /**
+     * Возвращает полный баланс карты по закодированному номеру, используя уникальный индекс по номеру.
+     **/
+    @Query(value = "select c.balance + " +
+                   "coalesce((select sum(s.balance) from CardBalanceSlot s where s.cardId = c.id), 0) " +
+                   "from Card c where c.number = :number")
+    Optional<BigDecimal> findBalanceByNumber(String number);
+
+    /**
+     * Находит карты пользователя по списку закодированных номеров,
+     * используя уникальный индекс по номеру карты.
+     **/
+    List<Card> findAllByNumberInAndUserId(Collection<String> numbers, Long userId);
+
+    /**
+     * Находит и блокирует (SELECT ... FOR UPDATE) карты пользователя по списку закодированных номеров.
+     * Строки блокируются в порядке возрастания id, поэтому встречные переводы не приводят к взаимной блокировке.
+     **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query(value = "select c from Card c " +
-                   "where c.user.id = :userId order by c.expirationDate desc")
-    Page<Card> findAllByUserId(Long userId, Pageable pageable, Predicate predicate);
+                   "where c.number in :numbers and c.user.id = :userId order by c.id")
+    List<Card> findAllForUpdateByNumberInAndUserId(Collection<String> numbers, Long userId);
+
+    /**
+     * Находит и блокирует (SELECT ... FOR UPDATE) карту по id. Строка карты блокируется раньше её слотов,
+     * в том же порядке, что и при переводах.
+     **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select c from Card c where c.id = :id")
+    Optional<Card> findForUpdateById(Long id);
+
+    /**
+     * Блокирует строку карты пользователя по закодированному номеру без загрузки сущности и возвращает её id.
+     **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select c.id from Card c where c.number = :number and c.user.id = :userId")
+    Optional<Long> lockByNumberAndUserId(String number, Long userId);
+
+    /**
+     * Загружает карты перевода, кроме получателя с балансом в слотах: зачисление на него идёт в слот,
+     * поэтому строка получателя не читается и не блокируется.
+     **/
+    @Query(value = "select c from Card c where c.number in :numbers and c.user.id = :userId " +
+                   "and (c.number <> :recipient or c.balanceSlots = 0)")
+    List<Card> findAllForTransfer(Collection<String> numbers, String recipient, Long userId);
+
+    /**
+     * То же, что findAllForTransfer, с блокировкой (SELECT ... FOR UPDATE) в порядке возрастания id.
+     **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select c from Card c where c.number in :numbers and c.user.id = :userId " +
+                   "and (c.number <> :recipient or c.balanceSlots = 0) order by c.id")
+    List<Card> findAllForUpdateForTransfer(Collection<String> numbers, String recipient, Long userId);
+
+    /**
+     * Блокирует строки карт перевода тем же запросом, что и findAllForUpdateForTransfer, но без загрузки сущностей:
+     * атомарный перевод берёт блокировки в том же порядке, что и остальные режимы и пакетные переводы.
+     **/
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select c.id from Card c where c.number in :numbers and c.user.id = :userId " +
+                   "and (c.number <> :recipient or c.balanceSlots = 0) order by c.id")
+    List<Long> lockForTransfer(Collection<String> numbers, String recipient, Long userId);
+
+    /**
+     * Списывает сумму с активной карты пользователя, если на ней достаточно средств.
+     * Возвращает количество изменённых строк: 0, если карта не найдена, не активна или средств недостаточно.
+     **/
+    @Modifying
+    @Query(value = "update Card c set c.balance = c.balance - :sum, c.version = c.version + 1 " +
+                   "where c.number = :number and c.user.id = :userId " +
+                   "and c.balance >= :sum and c.status = com.example.bankcards.enumpack.Status.ACTIVE")
+    int debitBalance(String number, Long userId, BigDecimal sum);
+
+    /**
+     * Зачисляет сумму на активную карту пользователя без слотов баланса.
+     * Возвращает количество изменённых строк: 0, если карта не найдена, не активна или зачисления идут в слоты.
+     **/
+    @Modifying
+    @Query(value = "update Card c set c.balance = c.balance + :sum, c.version = c.version + 1 " +
+                   "where c.number = :number and c.user.id = :userId " +
+                   "and c.status = com.example.bankcards.enumpack.Status.ACTIVE and c.balanceSlots = 0")
+    int creditBalance(String number, Long userId, BigDecimal sum);
+
+    /**
+     * Добавляет сумму к основному балансу активной карты пользователя, в том числе карты со слотами.
+     **/
+    @Modifying
+    @Query(value = "update Card c set c.balance = c.balance + :sum, c.version = c.version + 1 " +
+                   "where c.number = :number and c.user.id = :userId " +
+                   "and c.status = com.example.bankcards.enumpack.Status.ACTIVE")
+    int addBalance(String number, Long userId, BigDecimal sum);
+
+    interface CardBalance {
+
+        String getNumber();
 
-    List<Card> findAllByUserId(Long userId);
+        BigDecimal getBalance();
+    }
 }
@@ -0,0 +1,76 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Добавляет проводки перевода одним запросом: списание с карты cardFrom и зачисление на карту cardTo.
+     * Карты находятся по закодированному номеру, поэтому id карт заранее знать не нужно.
+     * Возвращает число добавленных проводок.
+     **/
+    @Modifying
+    @Query(value = "INSERT INTO ledger_entry (id, card_id, transfer_id, type, amount, created_at) " +
+                   "SELECT nextval('ledger_entry_seq'), c.id, :transferId, 'TRANSFER', " +
+                   "CASE WHEN c.number = :cardFrom THEN -1 ELSE 1 END * CAST(:sum AS NUMERIC(12, 2)), :createdAt " +
+                   "FROM card c WHERE c.number IN (:cardFrom, :cardTo)", nativeQuery = true)
+    int postTransfer(@Param("transferId") Long transferId, @Param("cardFrom") String cardFrom,
+                     @Param("cardTo") String cardTo, @Param("sum") BigDecimal sum,
+                     @Param("createdAt") Instant createdAt);
+
+    /**
+     * Вычисляет баланс карты по журналу: последний снимок плюс сумма проводок после него.
+     **/
+    @Query(value = "SELECT COALESCE((SELECT s.balance FROM balance_snapshot s " +
+                   "WHERE s.card_id = :cardId ORDER BY s.entries_before DESC, s.id DESC LIMIT 1), 0) " +
+                   "+ COALESCE((SELECT SUM(e.amount) FROM ledger_entry e WHERE e.card_id = :cardId " +
+                   "AND e.created_at >= COALESCE((SELECT MAX(s.entries_before) FROM balance_snapshot s " +
+                   "WHERE s.card_id = :cardId), e.created_at)), 0)",
+           nativeQuery = true)
+    BigDecimal calculateBalance(@Param("cardId") Long cardId);
+
+    boolean existsByTransferId(Long transferId);
+
+    /**
+     * Возвращает наибольший id среди первых size карт с id больше afterId - границу очередной части сверки.
+     **/
+    @Query(value = "SELECT MAX(t.id) FROM (SELECT c.id FROM card c WHERE c.id > :afterId " +
+                   "ORDER BY c.id LIMIT :size) t", nativeQuery = true)
+    Optional<Long> findChunkEndCardId(@Param("afterId") Long afterId, @Param("size") int size);
+
+    /**
+     * Находит карты с id в интервале (afterId, upToId], у которых полный баланс (основной и слоты)
+     * расходится с балансом по журналу. Карты выбираются по первичному ключу, поэтому подзапросы
+     * выполняются только для строк интервала, а не для всей таблицы.
+     **/
+    @Query(value = "SELECT t.card_id AS cardId, t.balance AS balance, t.ledger_balance AS ledgerBalance " +
+                   "FROM (SELECT c.id AS card_id, c.balance + COALESCE((SELECT SUM(cs.balance) " +
+                   "FROM card_balance_slot cs WHERE cs.card_id = c.id), 0) AS balance, " +
+                   "COALESCE((SELECT s.balance FROM balance_snapshot s " +
+                   "WHERE s.card_id = c.id ORDER BY s.entries_before DESC, s.id DESC LIMIT 1), 0) " +
+                   "+ COALESCE((SELECT SUM(e.amount) FROM ledger_entry e WHERE e.card_id = c.id " +
+                   "AND e.created_at >= COALESCE((SELECT MAX(s.entries_before) FROM balance_snapshot s " +
+                   "WHERE s.card_id = c.id), e.created_at)), 0) AS ledger_balance " +
+                   "FROM card c WHERE c.id > :afterId AND c.id <= :upToId) t " +
+                   "WHERE t.balance <> t.ledger_balance",
+           nativeQuery = true)
+    List<BalanceMismatch> findBalanceMismatches(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    interface BalanceMismatch {
+
+        Long getCardId();
+
+        BigDecimal getBalance();
+
+        BigDecimal getLedgerBalance();
+    }
+}
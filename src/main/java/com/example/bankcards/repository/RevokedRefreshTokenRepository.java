@@ -0,0 +1,26 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.RevokedRefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface RevokedRefreshTokenRepository extends JpaRepository<RevokedRefreshToken, String> {
+
+    /**
+     * Отзывает токен обновления одним запросом.
+     * Возвращает 0, если токен уже был отозван: так повторное использование токена
+     * обнаруживается без предварительного SELECT и без гонки между параллельными запросами.
+     **/
+    @Modifying
+    @Query(value = "INSERT INTO revoked_refresh_token (token_id, expires_at) VALUES (:tokenId, :expiresAt) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int revoke(@Param("tokenId") String tokenId, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("delete from RevokedRefreshToken r where r.expiresAt < :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.TransferIdempotencyKey;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface TransferIdempotencyKeyRepository extends JpaRepository<TransferIdempotencyKey, Long> {
+
+    /**
+     * Находит ключ идемпотентности пользователя вместе с переводом и его владельцем одним запросом.
+     **/
+    @EntityGraph(attributePaths = {"transfer", "transfer.user"})
+    Optional<TransferIdempotencyKey> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query("delete from TransferIdempotencyKey k where k.createdAt < :createdAt")
+    int deleteAllCreatedBefore(@Param("createdAt") LocalDateTime createdAt);
+}
@@ -1,19 +1,86 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Transfer;
+import com.querydsl.core.types.Predicate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface TransferRepository extends JpaRepository<Transfer, Long>, QuerydslPredicateExecutor<Transfer> {
 
     /**
-     * Находит все переводы по id пользователя,
+     * Оценка количества переводов по pg_class.reltuples, см. CardRepository#estimateRowCount.
+     **/
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = to_regclass('transfer')",
+           nativeQuery = true)
+    Long estimateRowCount();
+
+    /**
+     * Находит страницу переводов по условию вместе с пользователями одним запросом,
+     * чтобы TransferReadMapper не догружал пользователя для каждого перевода.
+     **/
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Transfer> findAll(Predicate predicate, Pageable pageable);
+
+    /**
+     * Находит все переводы по id пользователя вместе с пользователем,
      * упорядоченные по дате перевода в обратном порядке.
      **/
+    @EntityGraph(attributePaths = "user")
     @Query(value = "select t from Transfer t " +
-                   "where t.user.id = :userId order by t.transferDate desc")
+                   "where t.user.id = :userId order by t.transferDate desc, t.id desc")
     Page<Transfer> findAllByUserId(Long userId, Pageable pageable);
+
+    /**
+     * То же, что findAllByUserId, но без подсчёта общего количества:
+     * запрашивается на одну строку больше размера страницы, чтобы определить наличие следующей.
+     **/
+    @EntityGraph(attributePaths = "user")
+    @Query(value = "select t from Transfer t " +
+                   "where t.user.id = :userId order by t.transferDate desc, t.id desc")
+    Slice<Transfer> findSliceByUserId(Long userId, Pageable pageable);
+
+    /**
+     * Находит первые переводы пользователя для постраничного вывода по курсору,
+     * упорядоченные по дате перевода и id в обратном порядке.
+     **/
+    @EntityGraph(attributePaths = "user")
+    @Query(value = "select t from Transfer t " +
+                   "where t.user.id = :userId order by t.transferDate desc, t.id desc")
+    List<Transfer> findFirstByUserId(Long userId, Limit limit);
+
+    /**
+     * Находит переводы пользователя, следующие за позицией курсора (transferDate, id),
+     * без OFFSET: стоимость не зависит от номера страницы при индексе
+     * transfer(user_id, transfer_date desc, id desc).
+     **/
+    @EntityGraph(attributePaths = "user")
+    @Query(value = "select t from Transfer t " +
+                   "where t.user.id = :userId and (t.transferDate, t.id) < (:transferDate, :id) " +
+                   "order by t.transferDate desc, t.id desc")
+    List<Transfer> findNextByUserId(Long userId, LocalDate transferDate, Long id, Limit limit);
+
+    /**
+     * Читает все переводы вместе с пользователями через однонаправленный курсор JDBC
+     * порциями по 1000 строк; поток нужно закрыть и читать внутри транзакции.
+     **/
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "select t from Transfer t join fetch t.user order by t.id")
+    Stream<Transfer> streamAll();
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
 package com.example.bankcards.security;
 
-public record AccessToken(String IdToken) {
+public record AccessToken(String IdToken, String refreshToken, long expiresIn) {
 }
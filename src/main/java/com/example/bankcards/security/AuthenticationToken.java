@@ -1,11 +1,15 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.dto.LoginDto;
-import com.example.bankcards.service.JwtAccessTokenService;
+import com.example.bankcards.dto.RefreshTokenDto;
+import com.example.bankcards.metrics.OperationMetrics;
+import com.example.bankcards.service.RefreshTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -13,14 +17,27 @@ import org.springframework.stereotype.Component;
 public class AuthenticationToken {
 
     private final AuthenticationManager authenticationManager;
-    private final JwtAccessTokenService jwtAccessTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final MeterRegistry meterRegistry;
 
     public AccessToken authenticate(LoginDto loginDto) {
+        return OperationMetrics.record(meterRegistry, OperationMetrics.AUTHENTICATION, () -> login(loginDto));
+    }
+
+    private AccessToken login(LoginDto loginDto) {
         Authentication authenticationToken = new UsernamePasswordAuthenticationToken(loginDto.getEmail(),
                 loginDto.getPassword());
         Authentication authenticate = authenticationManager.authenticate(authenticationToken);
-        String idToken = jwtAccessTokenService.generateIdToken(authenticate);
+        UserDetails userDetails = (UserDetails) authenticate.getPrincipal();
+
+        return refreshTokenService.issue(userDetails);
+    }
+
+    public AccessToken refresh(RefreshTokenDto refreshTokenDto) {
+        return refreshTokenService.refresh(refreshTokenDto.getRefreshToken());
+    }
 
-        return new AccessToken(idToken);
+    public void revoke(RefreshTokenDto refreshTokenDto) {
+        refreshTokenService.revoke(refreshTokenDto.getRefreshToken());
     }
 }
@@ -0,0 +1,12 @@
+package com.example.bankcards.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+
+import java.util.List;
+
+/**
+ * Набор ключей подписи: activeKid подписывает новые токены, keys проверяют подпись по kid из заголовка.
+ **/
+public record SigningKeys(JWSAlgorithm algorithm, String activeKid, List<JWK> keys) {
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.BalanceSlotProperties;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSlot;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Баланс карты, разбитый на слоты. Зачисления на такую карту идут в случайный слот и не блокируют
+ * строку card, поэтому входящие переводы на популярную карту масштабируются с числом слотов.
+ * Списания идут с основного баланса; если его не хватает, слоты блокируются в порядке номеров
+ * и их сумма переносится на основной баланс.
+ **/
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BalanceSlotService {
+
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
+    private final CardRepository cardRepository;
+    private final BalanceSlotProperties balanceSlotProperties;
+
+    /**
+     * Зачисляет сумму в слот карты. Возвращает false, если баланс карты не разбит на слоты,
+     * карта не активна или не найдена.
+     **/
+    public boolean credit(String encodedNumber, Long userId, BigDecimal sum) {
+        int random = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        return cardBalanceSlotRepository.credit(encodedNumber, userId, sum, random) == 1;
+    }
+
+    /**
+     * Переносит сумму слотов на основной баланс загруженной карты. Строка карты должна быть уже
+     * заблокирована: слоты всегда блокируются после строки своей карты, иначе встречные операции
+     * с той же картой могли бы взаимно заблокироваться.
+     **/
+    public void drain(Card card) {
+        if (card.getBalanceSlots() == 0) {
+            return;
+        }
+        BigDecimal drained = clear(cardBalanceSlotRepository.findAllForUpdateByCardId(card.getId()));
+        card.setBalance(card.getBalance().add(drained));
+        card.setSlotBalance(BigDecimal.ZERO);
+    }
+
+    /**
+     * Переносит сумму слотов на основной баланс активной карты по закодированному номеру без загрузки карты.
+     * Строка карты блокируется раньше слотов. Возвращает false, если карта не найдена или переносить нечего.
+     **/
+    public boolean drain(String encodedNumber, Long userId) {
+        Optional<Long> cardId = cardRepository.lockByNumberAndUserId(encodedNumber, userId);
+        if (cardId.isEmpty()) {
+            return false;
+        }
+        List<CardBalanceSlot> slots = cardBalanceSlotRepository.findAllForUpdateByCardId(cardId.get());
+        BigDecimal drained = slots.stream()
+                .map(CardBalanceSlot::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (drained.signum() == 0 || cardRepository.addBalance(encodedNumber, userId, drained) == 0) {
+            return false;
+        }
+        clear(slots);
+        return true;
+    }
+
+    /**
+     * Загружает сумму слотов для карт с balanceSlots > 0 одним запросом. Карты без слотов
+     * запроса не вызывают, поэтому обычное чтение карт не обращается к card_balance_slot.
+     **/
+    @Transactional(readOnly = true)
+    public void loadSlotBalances(Collection<Card> cards) {
+        Map<Long, Card> cardsWithSlots = cards.stream()
+                .filter(card -> card.getBalanceSlots() > 0)
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        if (cardsWithSlots.isEmpty()) {
+            return;
+        }
+        cardsWithSlots.values().forEach(card -> card.setSlotBalance(BigDecimal.ZERO));
+        for (CardBalanceSlotRepository.SlotBalance slotBalance
+                : cardBalanceSlotRepository.findSlotBalancesByCardIdIn(cardsWithSlots.keySet())) {
+            cardsWithSlots.get(slotBalance.getCardId()).setSlotBalance(slotBalance.getBalance());
+        }
+    }
+
+    /**
+     * Меняет число слотов карты: накопленное в слотах переносится на основной баланс, слоты создаются заново.
+     **/
+    public void resize(Card card, int balanceSlots) {
+        if (balanceSlots < 0 || balanceSlots > balanceSlotProperties.maxCount()) {
+            throw new IllegalArgumentException("Balance slots count must be between 0 and "
+                                               + balanceSlotProperties.maxCount());
+        }
+        drain(card);
+        cardBalanceSlotRepository.deleteAll(cardBalanceSlotRepository.findAllForUpdateByCardId(card.getId()));
+        cardBalanceSlotRepository.flush();
+        cardBalanceSlotRepository.saveAll(IntStream.range(0, balanceSlots)
+                .mapToObj(slot -> CardBalanceSlot.builder()
+                        .cardId(card.getId())
+                        .slot(slot)
+                        .balance(BigDecimal.ZERO)
+                        .build())
+                .toList());
+        card.setBalanceSlots(balanceSlots);
+    }
+
+    private static BigDecimal clear(List<CardBalanceSlot> slots) {
+        BigDecimal drained = BigDecimal.ZERO;
+        for (CardBalanceSlot slot : slots) {
+            drained = drained.add(slot.getBalance());
+            slot.setBalance(BigDecimal.ZERO);
+        }
+        return drained;
+    }
+}
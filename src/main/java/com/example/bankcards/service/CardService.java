@@ -1,24 +1,34 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.CardBalanceCache;
 import com.example.bankcards.dto.CardCreateEditDto;
 import com.example.bankcards.dto.CardReadDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.CardFilter;
 import com.example.bankcards.mapper.CardCreateEditMapper;
 import com.example.bankcards.mapper.CardReadMapper;
+import com.example.bankcards.metrics.OperationMetrics;
 import com.example.bankcards.predicate.QPredicate;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.Base64Codec;
+import com.example.bankcards.util.CardNumberHash;
 import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.bankcards.entity.QCard.card;
@@ -29,40 +39,119 @@ import static com.example.bankcards.entity.QCard.card;
 @Transactional(readOnly = true)
 public class CardService {
 
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final Sort USER_CARDS_SORT = Sort.by(Sort.Order.desc("expirationDate"), Sort.Order.desc("id"));
+
     private final CardRepository cardRepository;
     private final CardReadMapper cardReadMapper;
     private final CardCreateEditMapper cardCreateEditMapper;
+    private final MeterRegistry meterRegistry;
+    private final CardBalanceCache cardBalanceCache;
+    private final LedgerService ledgerService;
+    private final BalanceSlotService balanceSlotService;
+    private final CardNumberHash cardNumberHash;
 
     public Page<CardReadDto> findAll(CardFilter cardFilter, Pageable pageable) {
-        Predicate predicate = QPredicate.builder()
-                .add(cardFilter.getNumber(), card.number::contains)
-                .add(cardFilter.getExpirationDate(), card.expirationDate::before)
-                .buildAnd();
+        Predicate predicate = getPredicate(null, cardFilter).buildAnd();
+
+        Page<Card> cards = cardRepository.findAll(predicate, pageable);
+        balanceSlotService.loadSlotBalances(cards.getContent());
+        return cards.map(cardReadMapper::map);
+    }
+
+    public Slice<CardReadDto> findAll(CardFilter cardFilter, Pageable pageable, TotalMode totalMode) {
+        QPredicate predicate = getPredicate(null, cardFilter);
+        return TotalModeQuery.find(totalMode, !predicate.isEmpty(), cardRepository::estimateRowCount,
+                () -> findAll(cardFilter, pageable),
+                () -> findSlice(predicate.buildAnd(), pageable));
+    }
 
-        return cardRepository.findAll(predicate, pageable)
-                .map(cardReadMapper::map);
+    private Slice<CardReadDto> findSlice(Predicate predicate, Pageable pageable) {
+        Slice<Card> cards = cardRepository.findBy(predicate, query -> query.project("user").slice(pageable));
+        balanceSlotService.loadSlotBalances(cards.getContent());
+        return cards.map(cardReadMapper::map);
+    }
+
+    private QPredicate getPredicate(Long userId, CardFilter cardFilter) {
+        return QPredicate.builder()
+                .add(userId, card.user.id::eq)
+                .add(cardFilter.getNumber(), this::numberPredicate)
+                .add(cardFilter.getExpirationDate(), card.expirationDate::before);
+    }
+
+    /**
+     * Строит условие поиска по номеру карты, использующее индекс:
+     * 4 цифры - по хэшу последних четырёх цифр, 16 цифр - по закодированному номеру,
+     * 10 цифр - по хэшу BIN (первые 6 цифр) и последних четырёх цифр. Другая длина отклоняется:
+     * средние цифры в хэше не участвуют, и частичный номер нашёл бы карты с другими средними цифрами.
+     **/
+    private Predicate numberPredicate(String number) {
+        if (!number.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Card number filter must contain only digits");
+        }
+        if (number.length() == CardNumberHash.LAST_FOUR_LENGTH) {
+            return card.lastFourHash.eq(cardNumberHash.hashLastFour(number));
+        }
+        if (number.length() == CARD_NUMBER_LENGTH) {
+            return card.number.eq(Base64Codec.encodeCardNumber(number));
+        }
+        if (number.length() == CardNumberHash.BIN_LENGTH + CardNumberHash.LAST_FOUR_LENGTH) {
+            return card.binLastFourHash.eq(cardNumberHash.hashBinLastFour(number));
+        }
+        throw new IllegalArgumentException("Card number filter must contain the last 4 digits, "
+                                           + "the BIN with the last 4 digits or the full card number");
     }
 
     public CardReadDto findById(Long id) {
         return cardRepository.findById(id)
-                .map(cardReadMapper::map)
+                .map(this::mapWithSlotBalance)
                 .orElseThrow(() -> new EntityNotFoundException("Not found card with id = " + id));
     }
 
+    private CardReadDto mapWithSlotBalance(Card card) {
+        balanceSlotService.loadSlotBalances(List.of(card));
+        return cardReadMapper.map(card);
+    }
+
+    /**
+     * Возвращает баланс карты из кэша. Если номер карты по id ещё неизвестен, баланс и номер
+     * читаются одним запросом без загрузки сущности, а последующие запросы обслуживаются кэшем.
+     **/
     public BigDecimal getBalance(Long id) {
-        return cardRepository.findById(id)
-                .map(Card::getBalance)
+        Optional<String> number = cardBalanceCache.getNumber(id);
+        if (number.isPresent()) {
+            BigDecimal balance = cardBalanceCache.getBalance(number.get(),
+                    encodedNumber -> cardRepository.findBalanceByNumber(encodedNumber).orElse(null));
+            if (balance != null) {
+                return balance;
+            }
+        }
+
+        CardRepository.CardBalance cardBalance = cardRepository.findBalanceById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found card with id = " + id));
+        cardBalanceCache.putNumber(id, cardBalance.getNumber());
+        return cardBalance.getBalance();
     }
 
+    /**
+     * Находит карты пользователя с учётом фильтра, упорядоченные по дате окончания срока в обратном порядке.
+     * Условие по пользователю и сортировка совпадают с индексом card(user_id, expiration_date desc, id desc).
+     **/
     public Page<CardReadDto> findAllByUserId(Long userId, Pageable pageable, CardFilter cardFilter) {
-        Predicate predicate = QPredicate.builder()
-                .add(cardFilter.getNumber(), card.number::contains)
-                .add(cardFilter.getExpirationDate(), card.expirationDate::before)
-                .buildAnd();
+        Predicate predicate = getPredicate(userId, cardFilter).buildAnd();
+        Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), USER_CARDS_SORT);
 
-        return cardRepository.findAllByUserId(userId, pageable, predicate)
-                .map(cardReadMapper::map);
+        Page<Card> cards = cardRepository.findAll(predicate, sortedPageable);
+        balanceSlotService.loadSlotBalances(cards.getContent());
+        return cards.map(cardReadMapper::map);
+    }
+
+    public Slice<CardReadDto> findAllByUserId(Long userId, Pageable pageable, CardFilter cardFilter, TotalMode totalMode) {
+        if (totalMode != TotalMode.NONE) {
+            return findAllByUserId(userId, pageable, cardFilter);
+        }
+        Predicate predicate = getPredicate(userId, cardFilter).buildAnd();
+        return findSlice(predicate, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), USER_CARDS_SORT));
     }
 
     @Transactional
@@ -70,24 +159,56 @@ public class CardService {
         return Optional.of(cardCreateEditDto)
                 .map(cardCreateEditMapper::map)
                 .map(cardRepository::save)
+                .map(card -> {
+                    ledgerService.postOpening(card);
+                    return card;
+                })
                 .map(cardReadMapper::map)
                 .orElseThrow(() -> new IllegalArgumentException("Failed to create card"));
     }
 
     @Transactional
     public CardReadDto update(Long id, CardCreateEditDto cardCreateEditDto) {
-        Card cardForUpdate = cardRepository.findById(id)
+        // Строка карты блокируется до её слотов, как и при переводах
+        Card cardForUpdate = cardRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found card with id = " + id));
+        cardBalanceCache.invalidateCard(id, cardForUpdate.getNumber());
+        // Новый баланс задаётся полностью, поэтому накопленное в слотах сначала переносится на основной баланс
+        balanceSlotService.drain(cardForUpdate);
+        BigDecimal previousBalance = cardForUpdate.getBalance();
 
         return Optional.of(cardForUpdate)
                 .map(card -> cardCreateEditMapper.map(cardCreateEditDto, card))
                 .map(cardRepository::saveAndFlush)
+                .map(card -> {
+                    ledgerService.postAdjustment(card, previousBalance);
+                    cardBalanceCache.invalidate(card.getNumber());
+                    return card;
+                })
                 .map(cardReadMapper::map)
                 .orElseThrow(() -> new IllegalArgumentException("Failed to update the card with Id = " + id));
     }
 
+    /**
+     * Задаёт число слотов баланса карты (0 - без слотов). Полный баланс карты при этом не меняется.
+     * Строка карты блокируется раньше её слотов.
+     **/
+    @Transactional
+    public CardReadDto setBalanceSlots(Long id, int balanceSlots) {
+        Card card = cardRepository.findForUpdateById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Not found card with id = " + id));
+        balanceSlotService.resize(card, balanceSlots);
+        cardBalanceCache.invalidate(card.getNumber());
+
+        return cardReadMapper.map(cardRepository.saveAndFlush(card));
+    }
+
     @Transactional
     public CardReadDto blockingCard(Long id) {
+        return OperationMetrics.record(meterRegistry, OperationMetrics.CARD_BLOCKING, () -> blockCard(id));
+    }
+
+    private CardReadDto blockCard(Long id) {
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found user with id = " + id));
         if (card.getStatus().equals(Status.BLOCKED)) {
@@ -98,7 +219,7 @@ public class CardService {
         }
         card.setStatus(Status.BLOCKED);
         return Optional.of(cardRepository.saveAndFlush(card))
-                .map(cardReadMapper::map)
+                .map(this::mapWithSlotBalance)
                 .orElseThrow(() -> new RuntimeException("Failed to blocked the card with Id = " + id));
     }
 
@@ -107,6 +228,7 @@ public class CardService {
         return Optional.ofNullable(cardRepository.findById(id)
                         .orElseThrow(() -> new EntityNotFoundException("Not found card with id = " + id)))
                 .map(card -> {
+                    cardBalanceCache.invalidateCard(id, card.getNumber());
                     cardRepository.delete(card);
                     cardRepository.flush();
                     log.info("Card with id = " + id + " deleted");
@@ -1,5 +1,6 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.JwtProperties;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -10,31 +11,63 @@ import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @RequiredArgsConstructor
 @Service
 public class JwtAccessTokenService {
 
+    public static final String TOKEN_TYPE_CLAIM = "token_type";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
     private final JwtEncoder jwtEncoder;
+    private final JwtProperties jwtProperties;
 
     public String generateIdToken(Authentication authenticate) {
-        UserDetails userDetails = Optional.of(authenticate.getPrincipal())
+        UserDetails userDetails = Optional.ofNullable(authenticate)
+                .map(Authentication::getPrincipal)
                 .filter(UserDetails.class::isInstance)
                 .map(UserDetails.class::cast)
                 .orElseThrow(() -> new RuntimeException("Failed to create UserDetails from Authentication"));
+
+        return generateIdToken(userDetails);
+    }
+
+    public String generateIdToken(UserDetails userDetails) {
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
+        Instant now = Instant.now();
         JwtClaimsSet claimSet = JwtClaimsSet.builder()
                 .claim("scope", roles)
-                .issuedAt(Instant.now())
-                .expiresAt(Instant.now().plus(1, ChronoUnit.MINUTES))
+                .issuedAt(now)
+                .expiresAt(now.plus(jwtProperties.accessTokenTtl()))
                 .subject(userDetails.getUsername())
                 .build();
 
         return jwtEncoder.encode(JwtEncoderParameters.from(claimSet)).getTokenValue();
     }
+
+    /**
+     * Выпускает токен обновления: без ролей, с уникальным jti для отзыва
+     * и признаком token_type, по которому он не принимается как токен доступа.
+     **/
+    public String generateRefreshToken(UserDetails userDetails) {
+        Instant now = Instant.now();
+        JwtClaimsSet claimSet = JwtClaimsSet.builder()
+                .id(UUID.randomUUID().toString())
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .issuedAt(now)
+                .expiresAt(now.plus(jwtProperties.refreshTokenTtl()))
+                .subject(userDetails.getUsername())
+                .build();
+
+        return jwtEncoder.encode(JwtEncoderParameters.from(claimSet)).getTokenValue();
+    }
+
+    public long getAccessTokenTtlSeconds() {
+        return jwtProperties.accessTokenTtl().toSeconds();
+    }
 }
@@ -0,0 +1,168 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.LedgerProperties;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.enumpack.LedgerEntryType;
+import com.example.bankcards.repository.BalanceSnapshotRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Журнал проводок по картам. Проводки пишутся в транзакции, меняющей баланс карты,
+ * поэтому баланс в таблице card всегда равен балансу по журналу. Сверка проверяет это равенство.
+ **/
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class LedgerService {
+
+    private static final int TRANSFER_ENTRIES = 2;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final LedgerProperties ledgerProperties;
+    private final AtomicInteger mismatchedCards = new AtomicInteger();
+
+    public LedgerService(LedgerEntryRepository ledgerEntryRepository,
+                         BalanceSnapshotRepository balanceSnapshotRepository,
+                         LedgerProperties ledgerProperties,
+                         MeterRegistry meterRegistry) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.ledgerProperties = ledgerProperties;
+        meterRegistry.gauge("bank.ledger.mismatched.cards", mismatchedCards);
+    }
+
+    @Transactional
+    public void postTransfer(Transfer transfer) {
+        int posted = ledgerEntryRepository.postTransfer(transfer.getId(), transfer.getCardFrom(), transfer.getCardTo(),
+                transfer.getSum(), Instant.now());
+        if (posted != TRANSFER_ENTRIES) {
+            throw new IllegalStateException("Failed to post transfer with id = " + transfer.getId() + " to the ledger");
+        }
+    }
+
+    /**
+     * Записывает проводки пакета переводов между загруженными картами. Id карт берутся из cards,
+     * поэтому проводки сохраняются пакетной вставкой сущностей, а не отдельным запросом на перевод.
+     **/
+    @Transactional
+    public void postTransfers(List<Transfer> transfers, List<Card> cards) {
+        Map<String, Long> cardIds = cards.stream()
+                .collect(Collectors.toMap(Card::getNumber, Card::getId));
+        Instant createdAt = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * TRANSFER_ENTRIES);
+        for (Transfer transfer : transfers) {
+            Long cardFromId = cardIds.get(transfer.getCardFrom());
+            Long cardToId = cardIds.get(transfer.getCardTo());
+            entries.add(getTransferEntry(transfer, cardFromId, transfer.getSum().negate(), createdAt));
+            entries.add(getTransferEntry(transfer, cardToId, transfer.getSum(), createdAt));
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    private static LedgerEntry getTransferEntry(Transfer transfer, Long cardId, BigDecimal amount, Instant createdAt) {
+        if (cardId == null) {
+            throw new IllegalStateException("Failed to post transfer with id = " + transfer.getId() + " to the ledger");
+        }
+        return LedgerEntry.builder()
+                .cardId(cardId)
+                .transferId(transfer.getId())
+                .type(LedgerEntryType.TRANSFER)
+                .amount(amount)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    /**
+     * Отклоняет изменение или удаление проведённого перевода: журнал только дополняется,
+     * и его проводки по переводу разошлись бы с самим переводом. Переводы, созданные
+     * до появления журнала, проводок не имеют и могут меняться.
+     **/
+    public void checkTransferNotPosted(Long transferId) {
+        if (ledgerEntryRepository.existsByTransferId(transferId)) {
+            throw new IllegalStateException("The transfer with id = " + transferId
+                                            + " is posted to the ledger and cannot be changed");
+        }
+    }
+
+    /**
+     * Записывает начальный баланс новой карты.
+     **/
+    @Transactional
+    public void postOpening(Card card) {
+        post(card.getId(), LedgerEntryType.OPENING, card.getBalance());
+    }
+
+    /**
+     * Записывает изменение баланса карты администратором, если баланс изменился.
+     **/
+    @Transactional
+    public void postAdjustment(Card card, BigDecimal previousBalance) {
+        BigDecimal amount = card.getBalance().subtract(previousBalance);
+        if (amount.signum() != 0) {
+            post(card.getId(), LedgerEntryType.ADJUSTMENT, amount);
+        }
+    }
+
+    private void post(Long cardId, LedgerEntryType type, BigDecimal amount) {
+        ledgerEntryRepository.save(LedgerEntry.builder()
+                .cardId(cardId)
+                .type(type)
+                .amount(amount)
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    public BigDecimal calculateBalance(Long cardId) {
+        return ledgerEntryRepository.calculateBalance(cardId);
+    }
+
+    /**
+     * Добавляет снимки балансов по проводкам, созданным раньше before.
+     * Возвращает число добавленных снимков.
+     **/
+    @Transactional
+    public int takeSnapshots(Instant before) {
+        return balanceSnapshotRepository.takeSnapshots(before, Instant.now());
+    }
+
+    /**
+     * Сверяет балансы карт с журналом частями по reconciliationChunkSize карт в порядке id.
+     * Каждая часть читается отдельным запросом вне общей транзакции, чтобы сверка не держала
+     * одну долгую транзакцию на всю таблицу карт. Расхождения пишутся в лог, их число публикуется
+     * метрикой bank.ledger.mismatched.cards.
+     **/
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<LedgerEntryRepository.BalanceMismatch> reconcile() {
+        List<LedgerEntryRepository.BalanceMismatch> mismatches = new ArrayList<>();
+        Long afterId = 0L;
+        Optional<Long> upToId;
+        while ((upToId = ledgerEntryRepository.findChunkEndCardId(afterId,
+                ledgerProperties.reconciliationChunkSize())).isPresent()) {
+            mismatches.addAll(ledgerEntryRepository.findBalanceMismatches(afterId, upToId.get()));
+            afterId = upToId.get();
+        }
+        mismatchedCards.set(mismatches.size());
+        for (LedgerEntryRepository.BalanceMismatch mismatch : mismatches) {
+            log.warn("Balance of card with id = " + mismatch.getCardId() + " is " + mismatch.getBalance()
+                     + ", ledger balance is " + mismatch.getLedgerBalance());
+        }
+        return mismatches;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.RevokedRefreshTokenRepository;
+import com.example.bankcards.security.AccessToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Обмен токена обновления на новую пару токенов.
+ * Проверяется только подпись и срок действия токена, пароль повторно не хешируется.
+ * Каждый токен обновления одноразовый: при обмене его jti заносится в revoked_refresh_token,
+ * повторное предъявление того же токена отклоняется.
+ **/
+@Slf4j
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private final UserDetailsService userDetailsService;
+    private final JwtAccessTokenService jwtAccessTokenService;
+    private final RevokedRefreshTokenRepository revokedRefreshTokenRepository;
+    private final JwtDecoder refreshTokenDecoder;
+
+    public RefreshTokenService(UserDetailsService userDetailsService,
+                               JwtAccessTokenService jwtAccessTokenService,
+                               RevokedRefreshTokenRepository revokedRefreshTokenRepository,
+                               @Qualifier("refreshTokenDecoder") JwtDecoder refreshTokenDecoder) {
+        this.userDetailsService = userDetailsService;
+        this.jwtAccessTokenService = jwtAccessTokenService;
+        this.revokedRefreshTokenRepository = revokedRefreshTokenRepository;
+        this.refreshTokenDecoder = refreshTokenDecoder;
+    }
+
+    public AccessToken issue(UserDetails userDetails) {
+        return new AccessToken(jwtAccessTokenService.generateIdToken(userDetails),
+                jwtAccessTokenService.generateRefreshToken(userDetails),
+                jwtAccessTokenService.getAccessTokenTtlSeconds());
+    }
+
+    public AccessToken refresh(String refreshToken) {
+        Jwt jwt = decode(refreshToken);
+        if (!revoke(jwt)) {
+            log.warn("Reuse of refresh token " + jwt.getId() + " for " + jwt.getSubject());
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(jwt.getSubject());
+        if (!userDetails.isEnabled() || !userDetails.isAccountNonLocked()) {
+            throw new BadCredentialsException("User is not allowed to refresh token");
+        }
+
+        return issue(userDetails);
+    }
+
+    public void revoke(String refreshToken) {
+        revoke(decode(refreshToken));
+    }
+
+    /**
+     * Удаляет записи об отозванных токенах, срок действия которых истёк: такие токены
+     * отклоняются уже при проверке подписи и срока.
+     **/
+    public int deleteExpiredRevokedTokens() {
+        return revokedRefreshTokenRepository.deleteAllExpired(Instant.now());
+    }
+
+    private boolean revoke(Jwt jwt) {
+        return revokedRefreshTokenRepository.revoke(jwt.getId(), jwt.getExpiresAt()) > 0;
+    }
+
+    private Jwt decode(String refreshToken) {
+        try {
+            return refreshTokenDecoder.decode(refreshToken);
+        } catch (JwtException e) {
+            throw new BadCredentialsException("Invalid refresh token", e);
+        }
+    }
+}
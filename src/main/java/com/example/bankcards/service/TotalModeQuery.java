@@ -0,0 +1,36 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.EstimatedSlice;
+import com.example.bankcards.enumpack.TotalMode;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@UtilityClass
+class TotalModeQuery {
+
+    /**
+     * Выполняет постраничную выборку с выбранным способом подсчёта общего количества.
+     * Оценка по статистике применяется только без фильтра, иначе выполняется точный count(*).
+     * Если статистика ещё не собиралась (оценка меньше нуля), тоже выполняется count(*).
+     **/
+    static <T> Slice<T> find(TotalMode totalMode, boolean filtered, Supplier<Long> estimateRowCount,
+                             Supplier<Page<T>> findPage, Supplier<Slice<T>> findSlice) {
+        if (totalMode == TotalMode.EXACT) {
+            return findPage.get();
+        }
+        if (totalMode == TotalMode.NONE) {
+            return findSlice.get();
+        }
+
+        Optional<Long> estimatedTotal = filtered
+                ? Optional.empty()
+                : Optional.ofNullable(estimateRowCount.get()).filter(total -> total >= 0);
+        return estimatedTotal
+                .<Slice<T>>map(total -> new EstimatedSlice<>(findSlice.get(), total))
+                .orElseGet(findPage);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferReadDto;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.enumpack.ExportFormat;
+import com.example.bankcards.mapper.TransferReadMapper;
+import com.example.bankcards.repository.TransferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TransferExportService {
+
+    /**
+     * Совпадает с fetch size запроса TransferRepository#streamAll: после каждой порции
+     * контекст персистентности очищается, и память не растёт с количеством выгруженных строк.
+     **/
+    static final int EXPORT_BATCH_SIZE = 1000;
+
+    private static final String CSV_HEADER = "id,userId,cardFrom,cardTo,transferDate,sum";
+
+    private final TransferRepository transferRepository;
+    private final TransferReadMapper transferReadMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    /**
+     * Выгружает все переводы в выходной поток в формате NDJSON или CSV,
+     * читая их через однонаправленный курсор JDBC. Возвращает количество выгруженных переводов.
+     **/
+    public long export(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long count = 0;
+        try (Stream<Transfer> transfers = transferRepository.streamAll()) {
+            Iterator<Transfer> iterator = transfers.iterator();
+            while (iterator.hasNext()) {
+                TransferReadDto transferReadDto = transferReadMapper.map(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, transferReadDto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(transferReadDto));
+                }
+                writer.write('\n');
+                if (++count % EXPORT_BATCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} transfers as {}", count, format);
+        return count;
+    }
+
+    private static void writeCsv(Writer writer, TransferReadDto transferReadDto) throws IOException {
+        writer.write(String.valueOf(transferReadDto.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(transferReadDto.getUserReadDto().getId()));
+        writer.write(',');
+        writer.write(transferReadDto.getCardFrom());
+        writer.write(',');
+        writer.write(transferReadDto.getCardTo());
+        writer.write(',');
+        writer.write(String.valueOf(transferReadDto.getTransferDate()));
+        writer.write(',');
+        writer.write(transferReadDto.getSum().toPlainString());
+    }
+}
@@ -1,29 +1,60 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.TransferIdempotencyCache;
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.TransferBatchResultDto;
 import com.example.bankcards.dto.TransferCreateEditDto;
 import com.example.bankcards.dto.TransferReadDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferIdempotencyKey;
 import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.enumpack.TotalMode;
+import com.example.bankcards.enumpack.TransferMode;
+import com.example.bankcards.enumpack.TransferRejection;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
+import com.example.bankcards.exception.TransferRejectedException;
 import com.example.bankcards.filter.TransferFilter;
 import com.example.bankcards.mapper.TransferCreateEditMapper;
 import com.example.bankcards.mapper.TransferReadMapper;
+import com.example.bankcards.metrics.OperationMetrics;
 import com.example.bankcards.predicate.QPredicate;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferIdempotencyKeyRepository;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.util.Base64Codec;
+import com.example.bankcards.util.TransferCursor;
 import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.example.bankcards.entity.QTransfer.transfer;
 
@@ -37,18 +68,38 @@ public class TransferService {
     private final CardRepository cardRepository;
     private final TransferReadMapper transferReadMapper;
     private final TransferCreateEditMapper transferCreateEditMapper;
+    private final TransferProperties transferProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+    private final TransferIdempotencyCache transferIdempotencyCache;
+    private final MeterRegistry meterRegistry;
+    private final CardBalanceCache cardBalanceCache;
+    private final LedgerService ledgerService;
+    private final BalanceSlotService balanceSlotService;
 
     public Page<TransferReadDto> findAll(TransferFilter transferFilter, Pageable pageable) {
-        Predicate predicate = QPredicate.builder()
-                .add(transferFilter.getTransferDate(), transfer.transferDate::after)
-                .add(transferFilter.getCardFrom(), transfer.cardFrom::contains)
-                .add(transferFilter.getCardTo(), transfer.cardTo::contains)
-                .buildAnd();
+        Predicate predicate = getPredicate(transferFilter).buildAnd();
 
         return transferRepository.findAll(predicate, pageable)
                 .map(transferReadMapper::map);
     }
 
+    public Slice<TransferReadDto> findAll(TransferFilter transferFilter, Pageable pageable, TotalMode totalMode) {
+        QPredicate predicate = getPredicate(transferFilter);
+        return TotalModeQuery.find(totalMode, !predicate.isEmpty(), transferRepository::estimateRowCount,
+                () -> findAll(transferFilter, pageable),
+                () -> transferRepository
+                        .findBy(predicate.buildAnd(), query -> query.project("user").slice(pageable))
+                        .map(transferReadMapper::map));
+    }
+
+    private static QPredicate getPredicate(TransferFilter transferFilter) {
+        return QPredicate.builder()
+                .add(transferFilter.getTransferDate(), transfer.transferDate::after)
+                .add(transferFilter.getCardFrom(), transfer.cardFrom::contains)
+                .add(transferFilter.getCardTo(), transfer.cardTo::contains);
+    }
+
     public TransferReadDto findById(Long id) {
         return transferRepository.findById(id)
                 .map(transferReadMapper::map)
@@ -60,42 +111,341 @@ public class TransferService {
                 .map(transferReadMapper::map);
     }
 
-    @Transactional
+    public Slice<TransferReadDto> findAllByUserId(Long userId, Pageable pageable, TotalMode totalMode) {
+        if (totalMode != TotalMode.NONE) {
+            return findAllByUserId(userId, pageable);
+        }
+        return transferRepository.findSliceByUserId(userId, pageable)
+                .map(transferReadMapper::map);
+    }
+
+    /**
+     * Возвращает страницу истории переводов пользователя, следующую за курсором (пустой курсор - первая страница).
+     * Запрашивается на одну строку больше размера страницы, чтобы без count(*) понять, есть ли следующая.
+     **/
+    public CursorPageResponse<TransferReadDto> findAllByUserIdAfter(Long userId, String after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Limit limit = Limit.of(size + 1);
+        List<Transfer> transfers;
+        if (after == null || after.isBlank()) {
+            transfers = transferRepository.findFirstByUserId(userId, limit);
+        } else {
+            TransferCursor cursor = TransferCursor.decode(after);
+            transfers = transferRepository.findNextByUserId(userId, cursor.transferDate(), cursor.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (transfers.size() > size) {
+            transfers = transfers.subList(0, size);
+            Transfer last = transfers.get(size - 1);
+            nextCursor = new TransferCursor(last.getTransferDate(), last.getId()).encode();
+        }
+        return new CursorPageResponse<>(transfers.stream()
+                .map(transferReadMapper::map)
+                .toList(), nextCursor);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransferReadDto create(TransferCreateEditDto transferCreateEditDto) {
-        String numberCardFrom = transferCreateEditDto.getCardFrom();
-        String numberCardTo = transferCreateEditDto.getCardTo();
-        BigDecimal sum = transferCreateEditDto.getSum();
+        return create(transferCreateEditDto, null);
+    }
+
+    /**
+     * Проводит перевод в отдельной транзакции. В режиме OPTIMISTIC при конфликте версий карты
+     * перевод повторяется в новой транзакции, но не более optimisticMaxAttempts раз.
+     * Если передан ключ идемпотентности и перевод с таким ключом уже проведён, возвращается сохранённый
+     * перевод без обращения к картам: сначала из кэша в памяти, затем из таблицы ключей.
+     * Ключ действует idempotencyKeyTtl; повтор ключа с другим телом запроса отклоняется (409).
+     * Длительность и исход (успех или причина отказа) записываются в таймер bank.transfer.create.
+     **/
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransferReadDto create(TransferCreateEditDto transferCreateEditDto, String idempotencyKey) {
+        return OperationMetrics.record(meterRegistry, OperationMetrics.TRANSFER_CREATE,
+                () -> createOrReplay(transferCreateEditDto, idempotencyKey));
+    }
+
+    private TransferReadDto createOrReplay(TransferCreateEditDto transferCreateEditDto, String idempotencyKey) {
         Long userId = transferCreateEditDto.getUserId();
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            requestHash = getRequestHash(transferCreateEditDto);
+            Optional<TransferReadDto> replayedTransfer = findByIdempotencyKey(userId, idempotencyKey, requestHash);
+            if (replayedTransfer.isPresent()) {
+                return replayedTransfer.get();
+            }
+        }
+
+        TransferReadDto transferReadDto;
+        try {
+            transferReadDto = createWithRetry(transferCreateEditDto, idempotencyKey, requestHash);
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный запрос с тем же ключом успел провести перевод, текущая транзакция откатилась
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            return findByIdempotencyKey(userId, idempotencyKey, requestHash).orElseThrow(() -> e);
+        }
+        if (idempotencyKey != null) {
+            transferIdempotencyCache.put(userId, idempotencyKey, requestHash, transferReadDto, LocalDateTime.now());
+        }
+        return transferReadDto;
+    }
+
+    /**
+     * Удаляет ключи идемпотентности старше idempotencyKeyTtl.
+     **/
+    @Transactional
+    public int deleteExpiredIdempotencyKeys() {
+        return transferIdempotencyKeyRepository.deleteAllCreatedBefore(
+                LocalDateTime.now().minus(transferProperties.idempotencyKeyTtl()));
+    }
+
+    /**
+     * Проводит пакет переводов пользователя в одной транзакции. Все затронутые карты блокируются
+     * одним запросом в порядке возрастания id, балансы меняются в памяти, поэтому каждая карта
+     * обновляется один раз с итоговой суммой. Отклонённые переводы не прерывают пакет,
+     * а возвращаются с причиной отказа.
+     **/
+    @Transactional
+    public List<TransferBatchResultDto> createBatch(Long userId, List<TransferCreateEditDto> transferCreateEditDtos) {
+        Map<String, String> encodedNumbers = new HashMap<>();
+        for (TransferCreateEditDto transferCreateEditDto : transferCreateEditDtos) {
+            encodedNumbers.computeIfAbsent(transferCreateEditDto.getCardFrom(), Base64Codec::encodeCardNumber);
+            encodedNumbers.computeIfAbsent(transferCreateEditDto.getCardTo(), Base64Codec::encodeCardNumber);
+        }
+        List<Card> cards = cardRepository.findAllForUpdateByNumberInAndUserId(encodedNumbers.values(), userId);
+
+        List<TransferBatchResultDto> results = new ArrayList<>(transferCreateEditDtos.size());
+        List<Transfer> transfers = new ArrayList<>();
+        List<Integer> transferIndexes = new ArrayList<>();
+        for (int i = 0; i < transferCreateEditDtos.size(); i++) {
+            TransferCreateEditDto transferCreateEditDto = transferCreateEditDtos.get(i);
+            try {
+                if (!userId.equals(transferCreateEditDto.getUserId())) {
+                    throw new IllegalArgumentException("The transfer belongs to another user");
+                }
+                if (transferCreateEditDto.getCardFrom().equals(transferCreateEditDto.getCardTo())) {
+                    throw new TransferRejectedException(TransferRejection.SAME_CARD, "Select different accounts");
+                }
+                Card cardFrom = getCardByNumber(cards, encodedNumbers.get(transferCreateEditDto.getCardFrom()),
+                        transferCreateEditDto.getCardFrom());
+                Card cardTo = getCardByNumber(cards, encodedNumbers.get(transferCreateEditDto.getCardTo()),
+                        transferCreateEditDto.getCardTo());
+                if (cardFrom.getBalance().compareTo(transferCreateEditDto.getSum()) < 0) {
+                    balanceSlotService.drain(cardFrom);
+                }
+                checkTransferAllowed(cardFrom, cardTo, transferCreateEditDto.getSum());
+
+                cardFrom.setBalance(cardFrom.getBalance().subtract(transferCreateEditDto.getSum()));
+                cardTo.setBalance(cardTo.getBalance().add(transferCreateEditDto.getSum()));
+                transfers.add(transferCreateEditMapper.map(transferCreateEditDto));
+                transferIndexes.add(i);
+                results.add(null);
+            } catch (IllegalArgumentException | EntityNotFoundException e) {
+                results.add(new TransferBatchResultDto(i, false, null, e.getMessage()));
+            }
+        }
+
+        cards.forEach(card -> cardBalanceCache.invalidate(card.getNumber()));
+        List<Transfer> savedTransfers = transferRepository.saveAll(transfers);
+        ledgerService.postTransfers(savedTransfers, cards);
+        for (int i = 0; i < savedTransfers.size(); i++) {
+            int index = transferIndexes.get(i);
+            results.set(index, new TransferBatchResultDto(index, true, transferReadMapper.map(savedTransfers.get(i)), null));
+        }
+        return results;
+    }
+
+    private TransferReadDto createWithRetry(TransferCreateEditDto transferCreateEditDto, String idempotencyKey,
+                                            String requestHash) {
+        int maxAttempts = transferProperties.mode() == TransferMode.OPTIMISTIC
+                ? transferProperties.optimisticMaxAttempts()
+                : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> doCreate(transferCreateEditDto, idempotencyKey, requestHash));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new IllegalStateException("The card balance was changed concurrently, try again later", e);
+                }
+                log.debug("Optimistic lock conflict on transfer, attempt " + attempt);
+            }
+        }
+    }
+
+    private Optional<TransferReadDto> findByIdempotencyKey(Long userId, String idempotencyKey, String requestHash) {
+        Optional<TransferReadDto> cachedTransfer = transferIdempotencyCache.get(userId, idempotencyKey, requestHash);
+        if (cachedTransfer.isPresent()) {
+            return cachedTransfer;
+        }
+        Optional<TransferIdempotencyKey> storedKey = transferIdempotencyKeyRepository
+                .findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+        if (storedKey.isEmpty()) {
+            return Optional.empty();
+        }
+
+        TransferIdempotencyKey key = storedKey.get();
+        if (key.getCreatedAt().isBefore(LocalDateTime.now().minus(transferProperties.idempotencyKeyTtl()))) {
+            // Ключ истёк, но ещё не удалён фоновой задачей: запрос проводится как новый
+            transferIdempotencyKeyRepository.delete(key);
+            return Optional.empty();
+        }
+        if (key.getRequestHash() != null && !key.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyConflictException("Idempotency key " + idempotencyKey
+                                                      + " was already used with a different request");
+        }
+        TransferReadDto transferReadDto = transferReadMapper.map(key.getTransfer());
+        transferIdempotencyCache.put(userId, idempotencyKey, requestHash, transferReadDto, key.getCreatedAt());
+        return Optional.of(transferReadDto);
+    }
+
+    /**
+     * SHA-256 полей запроса, от которых зависит результат перевода. Сумма нормализуется, чтобы 10 и 10.00 совпадали.
+     **/
+    private static String getRequestHash(TransferCreateEditDto transferCreateEditDto) {
+        String request = transferCreateEditDto.getUserId() + ":" + transferCreateEditDto.getCardFrom() + ":"
+                         + transferCreateEditDto.getCardTo() + ":"
+                         + transferCreateEditDto.getSum().stripTrailingZeros().toPlainString();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 
-        List<Card> cardsByUserId = cardRepository.findAllByUserId(userId);
-        Card cardFrom = cardsByUserId.stream()
-                .filter(card -> Base64Codec.decodeCardNumber(card.getNumber()).equals(numberCardFrom))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Not found card with number = " + numberCardFrom));
-        Card cardTo = cardsByUserId.stream()
-                .filter(card -> Base64Codec.decodeCardNumber(card.getNumber()).equals(numberCardTo))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Not found card with id = " + numberCardTo));
+    private TransferReadDto doCreate(TransferCreateEditDto transferCreateEditDto, String idempotencyKey,
+                                     String requestHash) {
+        String numberCardFrom = transferCreateEditDto.getCardFrom();
+        String numberCardTo = transferCreateEditDto.getCardTo();
 
         if (numberCardFrom.equals(numberCardTo)) {
-            throw new IllegalArgumentException("Select different accounts");
-        } else if (cardFrom.getBalance().compareTo(sum) < 0) {
-            throw new IllegalArgumentException("Insufficient funds on the card");
-        } else if (cardFrom.getStatus().equals(Status.EXPIRED) || cardTo.getStatus().equals(Status.EXPIRED)) {
-            throw new IllegalArgumentException("The card has expired");
-        } else if (cardFrom.getStatus().equals(Status.BLOCKED) || cardTo.getStatus().equals(Status.BLOCKED)) {
-            throw new IllegalArgumentException("Card is blocked");
+            throw new TransferRejectedException(TransferRejection.SAME_CARD, "Select different accounts");
+        }
+
+        String encodedCardFrom = Base64Codec.encodeCardNumber(numberCardFrom);
+        String encodedCardTo = Base64Codec.encodeCardNumber(numberCardTo);
+        if (transferProperties.mode() == TransferMode.ATOMIC) {
+            moveBalanceAtomically(encodedCardFrom, encodedCardTo, transferCreateEditDto);
         } else {
+            moveBalance(encodedCardFrom, encodedCardTo, transferCreateEditDto);
+        }
+        cardBalanceCache.invalidate(encodedCardFrom);
+        cardBalanceCache.invalidate(encodedCardTo);
+
+        Transfer savedTransfer = transferRepository.save(transferCreateEditMapper.map(transferCreateEditDto));
+        ledgerService.postTransfer(savedTransfer);
+        if (idempotencyKey != null) {
+            transferIdempotencyKeyRepository.saveAndFlush(TransferIdempotencyKey.builder()
+                    .userId(transferCreateEditDto.getUserId())
+                    .idempotencyKey(idempotencyKey)
+                    .requestHash(requestHash)
+                    .transfer(savedTransfer)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        return transferReadMapper.map(savedTransfer);
+    }
+
+    /**
+     * Переводит сумму между загруженными картами. Получатель с балансом в слотах не загружается:
+     * сумма зачисляется в слот, а загружается и блокируется только карта отправителя.
+     **/
+    private void moveBalance(String encodedCardFrom, String encodedCardTo, TransferCreateEditDto transferCreateEditDto) {
+        Long userId = transferCreateEditDto.getUserId();
+        BigDecimal sum = transferCreateEditDto.getSum();
+        List<String> encodedNumbers = List.of(encodedCardFrom, encodedCardTo);
+        List<Card> cards = transferProperties.mode() == TransferMode.PESSIMISTIC
+                ? cardRepository.findAllForUpdateForTransfer(encodedNumbers, encodedCardTo, userId)
+                : cardRepository.findAllForTransfer(encodedNumbers, encodedCardTo, userId);
+        Card cardFrom = getCardByNumber(cards, encodedCardFrom, transferCreateEditDto.getCardFrom());
+        Optional<Card> cardTo = findCardByNumber(cards, encodedCardTo);
+        if (cardFrom.getBalance().compareTo(sum) < 0) {
+            balanceSlotService.drain(cardFrom);
+        }
+
+        if (cardTo.isEmpty()) {
+            creditToSlot(cardFrom, encodedCardTo, transferCreateEditDto);
             cardFrom.setBalance(cardFrom.getBalance().subtract(sum));
             cardRepository.saveAndFlush(cardFrom);
-            cardTo.setBalance(cardTo.getBalance().add(sum));
-            cardRepository.saveAndFlush(cardTo);
+            return;
+        }
+        checkTransferAllowed(cardFrom, cardTo.get(), sum);
+
+        cardFrom.setBalance(cardFrom.getBalance().subtract(sum));
+        cardTo.get().setBalance(cardTo.get().getBalance().add(sum));
+        // Карты обновляются в порядке возрастания id, чтобы встречные переводы не блокировали друг друга
+        Stream.of(cardFrom, cardTo.get())
+                .sorted(Comparator.comparing(Card::getId))
+                .forEach(cardRepository::saveAndFlush);
+    }
+
+    /**
+     * Зачисляет сумму в слот получателя. Если число слотов карты параллельно сбросили в 0,
+     * сумма зачисляется на основной баланс, а если карта не найдена или не активна - возвращается причина отказа.
+     **/
+    private void creditToSlot(Card cardFrom, String encodedCardTo, TransferCreateEditDto transferCreateEditDto) {
+        Long userId = transferCreateEditDto.getUserId();
+        BigDecimal sum = transferCreateEditDto.getSum();
+        // Статус получателя проверяет сам запрос зачисления
+        checkTransferAllowed(cardFrom, Status.ACTIVE, sum);
+        if (!balanceSlotService.credit(encodedCardTo, userId, sum)
+            && cardRepository.creditBalance(encodedCardTo, userId, sum) == 0) {
+            Card cardTo = getCardByNumber(cardRepository.findAllByNumberInAndUserId(List.of(encodedCardTo), userId),
+                    encodedCardTo, transferCreateEditDto.getCardTo());
+            checkTransferAllowed(cardFrom, cardTo, sum);
+            throw new IllegalStateException("The card balance was changed concurrently, try again later");
+        }
+    }
 
-            return Optional.of(transferCreateEditDto)
-                    .map(transferCreateEditMapper::map)
-                    .map(transferRepository::save)
-                    .map(transferReadMapper::map)
-                    .orElseThrow();
+    /**
+     * Списывает и зачисляет сумму условными UPDATE без загрузки карт: проверка баланса и статуса
+     * выполняется в самом запросе. Карты загружаются только если перевод отклонён, чтобы вернуть причину.
+     **/
+    private void moveBalanceAtomically(String encodedCardFrom, String encodedCardTo,
+                                       TransferCreateEditDto transferCreateEditDto) {
+        Long userId = transferCreateEditDto.getUserId();
+        BigDecimal sum = transferCreateEditDto.getSum();
+        // Строки карт блокируются заранее тем же запросом, что и в остальных режимах и пакетных переводах,
+        // чтобы встречные переводы брали блокировки в одном порядке и не блокировали друг друга
+        cardRepository.lockForTransfer(List.of(encodedCardFrom, encodedCardTo), encodedCardTo, userId);
+        boolean moved = debitAtomically(encodedCardFrom, userId, sum) && creditAtomically(encodedCardTo, userId, sum);
+        if (!moved) {
+            List<Card> cards = cardRepository.findAllByNumberInAndUserId(List.of(encodedCardFrom, encodedCardTo), userId);
+            Card cardFrom = getCardByNumber(cards, encodedCardFrom, transferCreateEditDto.getCardFrom());
+            Card cardTo = getCardByNumber(cards, encodedCardTo, transferCreateEditDto.getCardTo());
+            checkTransferAllowed(cardFrom, cardTo, sum);
+            throw new IllegalStateException("The card balance was changed concurrently, try again later");
+        }
+    }
+
+    /**
+     * Списывает сумму с основного баланса, а если его не хватает - повторяет списание после переноса слотов.
+     **/
+    private boolean debitAtomically(String encodedNumber, Long userId, BigDecimal sum) {
+        return cardRepository.debitBalance(encodedNumber, userId, sum) == 1
+               || balanceSlotService.drain(encodedNumber, userId)
+                  && cardRepository.debitBalance(encodedNumber, userId, sum) == 1;
+    }
+
+    private boolean creditAtomically(String encodedNumber, Long userId, BigDecimal sum) {
+        return cardRepository.creditBalance(encodedNumber, userId, sum) == 1
+               || balanceSlotService.credit(encodedNumber, userId, sum);
+    }
+
+    private static void checkTransferAllowed(Card cardFrom, Card cardTo, BigDecimal sum) {
+        checkTransferAllowed(cardFrom, cardTo.getStatus(), sum);
+    }
+
+    private static void checkTransferAllowed(Card cardFrom, Status cardToStatus, BigDecimal sum) {
+        if (cardFrom.getBalance().compareTo(sum) < 0) {
+            throw new TransferRejectedException(TransferRejection.INSUFFICIENT_FUNDS, "Insufficient funds on the card");
+        } else if (cardFrom.getStatus().equals(Status.EXPIRED) || cardToStatus.equals(Status.EXPIRED)) {
+            throw new TransferRejectedException(TransferRejection.CARD_EXPIRED, "The card has expired");
+        } else if (cardFrom.getStatus().equals(Status.BLOCKED) || cardToStatus.equals(Status.BLOCKED)) {
+            throw new TransferRejectedException(TransferRejection.CARD_BLOCKED, "Card is blocked");
         }
     }
 
@@ -103,6 +453,7 @@ public class TransferService {
     public TransferReadDto update(Long id, TransferCreateEditDto transferCreateEditDto) {
         Transfer transferForUpdate = transferRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found transfer with id = " + id));
+        ledgerService.checkTransferNotPosted(id);
 
         return Optional.of(transferForUpdate)
                 .map(transfer -> transferCreateEditMapper.map(transferCreateEditDto, transfer))
@@ -116,6 +467,7 @@ public class TransferService {
         return Optional.ofNullable(transferRepository.findById(id)
                         .orElseThrow(() -> new EntityNotFoundException("Not found transfer with id = " + id)))
                 .map(transfer -> {
+                    ledgerService.checkTransferNotPosted(id);
                     transferRepository.delete(transfer);
                     transferRepository.flush();
                     log.info("Transfer with id = " + id + " deleted");
@@ -123,4 +475,15 @@ public class TransferService {
                 })
                 .orElse(false);
     }
+
+    private static Card getCardByNumber(List<Card> cards, String encodedNumber, String number) {
+        return findCardByNumber(cards, encodedNumber)
+                .orElseThrow(() -> new EntityNotFoundException("Not found card with number = " + number));
+    }
+
+    private static Optional<Card> findCardByNumber(List<Card> cards, String encodedNumber) {
+        return cards.stream()
+                .filter(card -> card.getNumber().equals(encodedNumber))
+                .findFirst();
+    }
 }
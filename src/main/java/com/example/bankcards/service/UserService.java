@@ -1,19 +1,24 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserDetailsCache;
 import com.example.bankcards.dto.UserCreateEditDto;
 import com.example.bankcards.dto.UserReadDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.SearchMode;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.UserFilter;
 import com.example.bankcards.mapper.UserCreateEditMapper;
 import com.example.bankcards.mapper.UserReadMapper;
 import com.example.bankcards.predicate.QPredicate;
 import com.example.bankcards.repository.UserRepository;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.StringPath;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -22,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static com.example.bankcards.entity.QUser.user;
 
@@ -34,21 +40,46 @@ public class UserService implements UserDetailsService{
     private final UserRepository userRepository;
     private final UserReadMapper userReadMapper;
     private final UserCreateEditMapper userCreateEditMapper;
+    private final UserDetailsCache userDetailsCache;
 
     public Page<UserReadDto> findAll(UserFilter userFilter, Pageable pageable) {
-        Predicate predicate = QPredicate.builder()
-                .add(userFilter.getFirstname(), user.firstname::containsIgnoreCase)
-                .add(userFilter.getLastname(), user.lastname::containsIgnoreCase)
-                .add(userFilter.getPhoneNumber(), user.phoneNumber::containsIgnoreCase)
-                .add(userFilter.getEmail(), user.email::containsIgnoreCase)
-                .add(userFilter.getBirthDate(), user.birthDate::before)
-                .add(userFilter.getPassportNumber(), user.passportNumber::containsIgnoreCase)
-                .buildAnd();
+        Predicate predicate = getPredicate(userFilter).buildAnd();
 
         return userRepository.findAll(predicate, pageable)
                 .map(userReadMapper::map);
     }
 
+    public Slice<UserReadDto> findAll(UserFilter userFilter, Pageable pageable, TotalMode totalMode) {
+        QPredicate predicate = getPredicate(userFilter);
+        return TotalModeQuery.find(totalMode, !predicate.isEmpty(), userRepository::estimateRowCount,
+                () -> findAll(userFilter, pageable),
+                () -> userRepository
+                        .findBy(predicate.buildAnd(), query -> query.slice(pageable))
+                        .map(userReadMapper::map));
+    }
+
+    private static QPredicate getPredicate(UserFilter userFilter) {
+        SearchMode searchMode = userFilter.getSearchMode();
+        return QPredicate.builder()
+                .add(userFilter.getFirstname(), match(user.firstname, searchMode))
+                .add(userFilter.getLastname(), match(user.lastname, searchMode))
+                .add(userFilter.getPhoneNumber(), match(user.phoneNumber, searchMode))
+                .add(userFilter.getEmail(), match(user.email, searchMode))
+                .add(userFilter.getBirthDate(), user.birthDate::before)
+                .add(userFilter.getPassportNumber(), match(user.passportNumber, searchMode));
+    }
+
+    /**
+     * Возвращает условие поиска по строковому полю без учёта регистра:
+     * PREFIX использует индекс по lower(поле) с text_pattern_ops,
+     * SUBSTRING (по умолчанию) - триграммный GIN индекс по lower(поле).
+     **/
+    private static Function<String, Predicate> match(StringPath path, SearchMode searchMode) {
+        return searchMode == SearchMode.PREFIX
+                ? path::startsWithIgnoreCase
+                : path::containsIgnoreCase;
+    }
+
     public UserReadDto findById(Long id) {
         return userRepository.findById(id)
                 .map(userReadMapper::map)
@@ -68,6 +99,7 @@ public class UserService implements UserDetailsService{
     public UserReadDto update(Long id, UserCreateEditDto userCreateEditDto) {
         User userForUpdate = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Not found user with id = " + id));
+        userDetailsCache.invalidate(userForUpdate.getEmail());
 
         return Optional.of(userForUpdate)
                 .map(user -> userCreateEditMapper.map(userCreateEditDto, user))
@@ -81,6 +113,7 @@ public class UserService implements UserDetailsService{
         return Optional.ofNullable(userRepository.findById(id)
                         .orElseThrow(() -> new EntityNotFoundException("Not found user with id = " + id)))
                 .map(user -> {
+                    userDetailsCache.invalidate(user.getEmail());
                     userRepository.delete(user);
                     userRepository.flush();
                     log.info("User with id = " + id + " deleted");
@@ -89,8 +122,16 @@ public class UserService implements UserDetailsService{
                 .orElse(false);
     }
 
+    /**
+     * Загружает данные пользователя для аутентификации через кэш,
+     * к таблице users обращается только при отсутствии или истечении записи.
+     **/
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return userDetailsCache.get(email, this::findUserDetails);
+    }
+
+    private UserDetails findUserDetails(String email) {
         return userRepository.findByEmail(email)
                 .map(user -> new org.springframework.security.core.userdetails.User(
                         user.getEmail(),
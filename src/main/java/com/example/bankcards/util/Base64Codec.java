@@ -3,6 +3,7 @@ package com.example.bankcards.util;
 import lombok.experimental.UtilityClass;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 
 @UtilityClass
@@ -10,23 +11,115 @@ public class Base64Codec {
 
     private static final String codeWord = "bank_rest";
 
+    private static final byte[] KEY = codeWord.getBytes(StandardCharsets.UTF_8);
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int[] ALPHABET_INDEX = new int[128];
+    private static final int BUFFER_SIZE = 128;
+
+    /**
+     * Буфер потока для промежуточных байтов: на каждый вызов создаётся только итоговая строка.
+     **/
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    static {
+        Arrays.fill(ALPHABET_INDEX, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            ALPHABET_INDEX[ALPHABET[i]] = i;
+        }
+    }
+
     public static String encodeCardNumber(String cardNumber) {
+        int length = cardNumber.length();
+        int encodedLength = (length + 2) / 3 * 4;
+        if (encodedLength > BUFFER_SIZE || !isAscii(cardNumber)) {
+            return encodeWithJdk(cardNumber);
+        }
+
+        byte[] encoded = BUFFER.get();
+        int position = 0;
+        for (int i = 0; i < length; i += 3) {
+            int remaining = length - i;
+            int b0 = xorAt(cardNumber, i);
+            int b1 = remaining > 1 ? xorAt(cardNumber, i + 1) : 0;
+            int b2 = remaining > 2 ? xorAt(cardNumber, i + 2) : 0;
+            encoded[position++] = (byte) ALPHABET[b0 >>> 2];
+            encoded[position++] = (byte) ALPHABET[(b0 & 0x03) << 4 | b1 >>> 4];
+            encoded[position++] = remaining > 1 ? (byte) ALPHABET[(b1 & 0x0f) << 2 | b2 >>> 6] : (byte) '=';
+            encoded[position++] = remaining > 2 ? (byte) ALPHABET[b2 & 0x3f] : (byte) '=';
+        }
+        return new String(encoded, 0, position, StandardCharsets.ISO_8859_1);
+    }
+
+    public static String decodeCardNumber(String cardNumberBase64) {
+        int length = cardNumberBase64.length();
+        if (length == 0 || length % 4 != 0 || length / 4 * 3 > BUFFER_SIZE) {
+            return decodeWithJdk(cardNumberBase64);
+        }
+
+        byte[] decoded = BUFFER.get();
+        int position = 0;
+        for (int i = 0; i < length; i += 4) {
+            int c0 = indexOf(cardNumberBase64.charAt(i));
+            int c1 = indexOf(cardNumberBase64.charAt(i + 1));
+            char third = cardNumberBase64.charAt(i + 2);
+            char fourth = cardNumberBase64.charAt(i + 3);
+            boolean last = i + 4 == length;
+            int c2 = last && third == '=' && fourth == '=' ? 0 : indexOf(third);
+            int c3 = last && fourth == '=' ? 0 : indexOf(fourth);
+            if ((c0 | c1 | c2 | c3) < 0) {
+                return decodeWithJdk(cardNumberBase64);
+            }
+            decoded[position] = (byte) (c0 << 2 | c1 >>> 4);
+            decoded[position] ^= KEY[position % KEY.length];
+            position++;
+            if (third != '=' || !last) {
+                decoded[position] = (byte) ((c1 & 0x0f) << 4 | c2 >>> 2);
+                decoded[position] ^= KEY[position % KEY.length];
+                position++;
+            }
+            if (fourth != '=' || !last) {
+                decoded[position] = (byte) ((c2 & 0x03) << 6 | c3);
+                decoded[position] ^= KEY[position % KEY.length];
+                position++;
+            }
+        }
+        return new String(decoded, 0, position, StandardCharsets.UTF_8);
+    }
+
+    private static int xorAt(String value, int index) {
+        return (value.charAt(index) ^ KEY[index % KEY.length]) & 0xff;
+    }
+
+    private static int indexOf(char c) {
+        return c < ALPHABET_INDEX.length ? ALPHABET_INDEX[c] : -1;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String encodeWithJdk(String cardNumber) {
         byte[] cardNumberBytes = cardNumber.getBytes(StandardCharsets.UTF_8);
-        xorInPlace(cardNumberBytes, codeWord.getBytes(StandardCharsets.UTF_8));
+        xorInPlace(cardNumberBytes);
 
         return Base64.getEncoder().encodeToString(cardNumberBytes);
     }
 
-    public static String decodeCardNumber(String cardNumberBase64) {
+    private static String decodeWithJdk(String cardNumberBase64) {
         byte[] cardNumberBytes = Base64.getDecoder().decode(cardNumberBase64);
-        xorInPlace(cardNumberBytes, codeWord.getBytes(StandardCharsets.UTF_8));
+        xorInPlace(cardNumberBytes);
 
         return new String(cardNumberBytes, StandardCharsets.UTF_8);
     }
 
-    private static void xorInPlace(byte[] data, byte[] key) {
+    private static void xorInPlace(byte[] data) {
         for (int i = 0; i < data.length; i++) {
-            data[i] ^= key[i % key.length];
+            data[i] ^= KEY[i % KEY.length];
         }
     }
 }
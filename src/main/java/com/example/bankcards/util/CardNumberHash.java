@@ -0,0 +1,62 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.CardSearchProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Ключевой хэш (HMAC-SHA256) частей номера карты для поиска по индексу.
+ * Номер карты хранится в закодированном виде, поэтому поиск по последним четырём цифрам
+ * и по BIN с последними четырьмя цифрами выполняется по отдельным колонкам с этими хэшами.
+ **/
+@Component
+public class CardNumberHash {
+
+    public static final int LAST_FOUR_LENGTH = 4;
+    public static final int BIN_LENGTH = 6;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> mac;
+
+    public CardNumberHash(CardSearchProperties cardSearchProperties) {
+        String hashKey = cardSearchProperties.hashKey();
+        if (hashKey == null || hashKey.isBlank()) {
+            throw new IllegalStateException("Card search hash key is not configured (bank.card.search.hash-key)");
+        }
+        SecretKeySpec secretKey = new SecretKeySpec(hashKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> createMac(secretKey));
+    }
+
+    public String hashLastFour(String cardNumber) {
+        return hash(lastFour(cardNumber));
+    }
+
+    public String hashBinLastFour(String cardNumber) {
+        return hash(cardNumber.substring(0, BIN_LENGTH) + lastFour(cardNumber));
+    }
+
+    private static String lastFour(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - LAST_FOUR_LENGTH);
+    }
+
+    private String hash(String value) {
+        byte[] digest = mac.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private static Mac createMac(SecretKeySpec secretKey) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize card number hash", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в истории переводов (дата перевода и id последнего показанного перевода),
+ * передаваемая клиенту в виде непрозрачной строки.
+ **/
+public record TransferCursor(LocalDate transferDate, Long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        String value = transferDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransferCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+            return new TransferCursor(LocalDate.parse(value.substring(0, separatorIndex)),
+                    Long.valueOf(value.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid transfer cursor: " + cursor);
+        }
+    }
+}
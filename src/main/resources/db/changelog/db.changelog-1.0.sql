@@ -37,4 +37,137 @@ CREATE TABLE transfer
     transfer_date   DATE                                           NOT NULL,
     sum             NUMERIC(10, 2)                                 NOT NULL
 )
---rollback DROP TABLE transfer;
\ No newline at end of file
+--rollback DROP TABLE transfer;
+
+--changeset KamoUser:4
+ALTER TABLE card ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+--rollback ALTER TABLE card DROP COLUMN version;
+
+--changeset KamoUser:5
+CREATE SEQUENCE users_seq INCREMENT BY 50;
+CREATE SEQUENCE card_seq INCREMENT BY 50;
+CREATE SEQUENCE transfer_seq INCREMENT BY 50;
+--rollback DROP SEQUENCE users_seq; DROP SEQUENCE card_seq; DROP SEQUENCE transfer_seq;
+
+--changeset KamoUser:6 dbms:postgresql
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) FROM users) + 50, false);
+SELECT setval('card_seq', (SELECT COALESCE(MAX(id), 0) FROM card) + 50, false);
+SELECT setval('transfer_seq', (SELECT COALESCE(MAX(id), 0) FROM transfer) + 50, false);
+
+--changeset KamoUser:7
+CREATE TABLE transfer_idempotency_key
+(
+    id              BIGINT PRIMARY KEY,
+    user_id         BIGINT REFERENCES users (id) ON DELETE CASCADE    NOT NULL,
+    idempotency_key VARCHAR(64)                                       NOT NULL,
+    transfer_id     BIGINT REFERENCES transfer (id) ON DELETE CASCADE NOT NULL,
+    created_at      TIMESTAMP                                         NOT NULL,
+    UNIQUE (user_id, idempotency_key)
+);
+CREATE SEQUENCE transfer_idempotency_key_seq INCREMENT BY 50;
+--rollback DROP SEQUENCE transfer_idempotency_key_seq; DROP TABLE transfer_idempotency_key;
+
+
+--changeset KamoUser:8
+CREATE INDEX card_user_id_expiration_date_idx ON card (user_id, expiration_date DESC, id DESC);
+--rollback DROP INDEX card_user_id_expiration_date_idx;
+
+--changeset KamoUser:9
+ALTER TABLE card ADD COLUMN last_four_hash VARCHAR(64);
+ALTER TABLE card ADD COLUMN bin_last_four_hash VARCHAR(64);
+CREATE INDEX card_last_four_hash_idx ON card (last_four_hash);
+CREATE INDEX card_bin_last_four_hash_idx ON card (bin_last_four_hash);
+--rollback DROP INDEX card_bin_last_four_hash_idx; DROP INDEX card_last_four_hash_idx; ALTER TABLE card DROP COLUMN bin_last_four_hash; ALTER TABLE card DROP COLUMN last_four_hash;
+
+--changeset KamoUser:10 dbms:postgresql
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
+UPDATE card c
+SET last_four_hash     = encode(hmac(right(d.plain, 4), '${card-search-hash-key}', 'sha256'), 'base64'),
+    bin_last_four_hash = encode(hmac(left(d.plain, 6) || right(d.plain, 4), '${card-search-hash-key}', 'sha256'), 'base64')
+FROM (SELECT card.id,
+             convert_from(string_agg(set_byte('\x00'::bytea, 0,
+                                              get_byte(decode(card.number, 'base64'), i)
+                                              # get_byte('bank_rest'::bytea, i % 9)), ''::bytea ORDER BY i),
+                          'UTF8') AS plain
+      FROM card,
+           generate_series(0, length(decode(card.number, 'base64')) - 1) i
+      GROUP BY card.id) d
+WHERE c.id = d.id;
+
+--changeset KamoUser:11 dbms:postgresql
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX users_firstname_trgm_idx ON users USING gin (lower(firstname) gin_trgm_ops);
+CREATE INDEX users_lastname_trgm_idx ON users USING gin (lower(lastname) gin_trgm_ops);
+CREATE INDEX users_phone_number_trgm_idx ON users USING gin (lower(phone_number) gin_trgm_ops);
+CREATE INDEX users_email_trgm_idx ON users USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX users_passport_number_trgm_idx ON users USING gin (lower(passport_number) gin_trgm_ops);
+CREATE INDEX users_firstname_lower_idx ON users (lower(firstname) text_pattern_ops);
+CREATE INDEX users_lastname_lower_idx ON users (lower(lastname) text_pattern_ops);
+CREATE INDEX users_phone_number_lower_idx ON users (lower(phone_number) text_pattern_ops);
+CREATE INDEX users_email_lower_idx ON users (lower(email) text_pattern_ops);
+CREATE INDEX users_passport_number_lower_idx ON users (lower(passport_number) text_pattern_ops);
+--rollback DROP INDEX users_firstname_trgm_idx; DROP INDEX users_lastname_trgm_idx; DROP INDEX users_phone_number_trgm_idx; DROP INDEX users_email_trgm_idx; DROP INDEX users_passport_number_trgm_idx;
+--rollback DROP INDEX users_firstname_lower_idx; DROP INDEX users_lastname_lower_idx; DROP INDEX users_phone_number_lower_idx; DROP INDEX users_email_lower_idx; DROP INDEX users_passport_number_lower_idx;
+
+--changeset KamoUser:12
+CREATE INDEX transfer_user_id_transfer_date_idx ON transfer (user_id, transfer_date DESC, id DESC);
+--rollback DROP INDEX transfer_user_id_transfer_date_idx;
+
+--changeset KamoUser:13
+CREATE TABLE revoked_refresh_token
+(
+    token_id   VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX revoked_refresh_token_expires_at_idx ON revoked_refresh_token (expires_at);
+--rollback DROP TABLE revoked_refresh_token;
+
+--changeset KamoUser:14
+CREATE TABLE ledger_entry
+(
+    id          BIGINT PRIMARY KEY,
+    card_id     BIGINT                   NOT NULL,
+    transfer_id BIGINT,
+    type        VARCHAR(32)              NOT NULL,
+    amount      NUMERIC(12, 2)           NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE SEQUENCE ledger_entry_seq INCREMENT BY 50;
+CREATE INDEX ledger_entry_card_id_created_at_idx ON ledger_entry (card_id, created_at);
+CREATE INDEX ledger_entry_created_at_idx ON ledger_entry (created_at);
+CREATE TABLE balance_snapshot
+(
+    id             BIGINT PRIMARY KEY,
+    card_id        BIGINT                   NOT NULL,
+    balance        NUMERIC(12, 2)           NOT NULL,
+    entries_before TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE SEQUENCE balance_snapshot_seq INCREMENT BY 50;
+CREATE INDEX balance_snapshot_card_id_entries_before_idx ON balance_snapshot (card_id, entries_before);
+INSERT INTO ledger_entry (id, card_id, type, amount, created_at)
+SELECT nextval('ledger_entry_seq'), id, 'OPENING', balance, CURRENT_TIMESTAMP
+FROM card;
+--rollback DROP SEQUENCE balance_snapshot_seq; DROP TABLE balance_snapshot; DROP SEQUENCE ledger_entry_seq; DROP TABLE ledger_entry;
+
+--changeset KamoUser:15
+ALTER TABLE card ADD COLUMN balance_slots INT NOT NULL DEFAULT 0;
+CREATE TABLE card_balance_slot
+(
+    id      BIGINT PRIMARY KEY,
+    card_id BIGINT REFERENCES card (id) ON DELETE CASCADE NOT NULL,
+    slot    INT                                           NOT NULL,
+    balance NUMERIC(12, 2)                                NOT NULL DEFAULT 0,
+    UNIQUE (card_id, slot)
+);
+CREATE SEQUENCE card_balance_slot_seq INCREMENT BY 50;
+--rollback DROP SEQUENCE card_balance_slot_seq; DROP TABLE card_balance_slot; ALTER TABLE card DROP COLUMN balance_slots;
+
+--changeset KamoUser:16
+ALTER TABLE transfer_idempotency_key ADD COLUMN request_hash VARCHAR(64);
+CREATE INDEX transfer_idempotency_key_created_at_idx ON transfer_idempotency_key (created_at);
+--rollback DROP INDEX transfer_idempotency_key_created_at_idx; ALTER TABLE transfer_idempotency_key DROP COLUMN request_hash;
+
+--changeset KamoUser:17
+CREATE INDEX ledger_entry_transfer_id_idx ON ledger_entry (transfer_id);
+--rollback DROP INDEX ledger_entry_transfer_id_idx;
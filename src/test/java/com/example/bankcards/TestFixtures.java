@@ -0,0 +1,95 @@
+package com.example.bankcards;
+
+import com.example.bankcards.dto.CardCreateEditDto;
+import com.example.bankcards.dto.TransferCreateEditDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.util.Base64Codec;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Тестовые данные для тестов, работающих с базой. Телефон, почта, паспорт и номер карты случайные,
+ * поэтому тесты в общем контексте Spring не нарушают уникальные ограничения друг друга.
+ **/
+public final class TestFixtures {
+
+    private static final String CARD_FROM = "1234123412341234";
+    private static final String CARD_TO = "4321432143214321";
+
+    private TestFixtures() {
+    }
+
+    public static User getUser() {
+        String suffix = String.valueOf(ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999));
+        return User.builder()
+                .firstname("Ivan")
+                .lastname("Ivanov")
+                .phoneNumber("+375" + suffix)
+                .email("ivan" + suffix + "@gmail.com")
+                .role(Role.USER)
+                .birthDate(LocalDate.of(2000, 11, 11))
+                .passportNumber(suffix)
+                .password("{noop}123")
+                .build();
+    }
+
+    public static String getRandomCardNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L, 9_999_999_999_999_999L));
+    }
+
+    /**
+     * Активная карта с закодированным номером, сохраняемая напрямую через репозиторий, без начальной проводки.
+     **/
+    public static Card getCard(User user, String number, BigDecimal balance) {
+        return Card.builder()
+                .number(Base64Codec.encodeCardNumber(number))
+                .user(user)
+                .expirationDate(LocalDate.of(2035, 12, 12))
+                .status(Status.ACTIVE)
+                .balance(balance)
+                .build();
+    }
+
+    /**
+     * Перевод на 50.00 между картами CARD_FROM и CARD_TO, сохраняемый напрямую через репозиторий.
+     **/
+    public static Transfer getTransfer(User user, LocalDate transferDate) {
+        return Transfer.builder()
+                .user(user)
+                .cardFrom(Base64Codec.encodeCardNumber(CARD_FROM))
+                .cardTo(Base64Codec.encodeCardNumber(CARD_TO))
+                .transferDate(transferDate)
+                .sum(new BigDecimal("50.00"))
+                .build();
+    }
+
+    public static CardCreateEditDto getCardCreateEditDto(User user, String number, String balance) {
+        return CardCreateEditDto.builder()
+                .number(number)
+                .userId(user.getId())
+                .expirationDate(LocalDate.of(2035, 12, 12))
+                .status(Status.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .build();
+    }
+
+    public static TransferCreateEditDto getTransferCreateEditDto(User user, String cardFrom, String cardTo, String sum) {
+        return getTransferCreateEditDto(user, cardFrom, cardTo, new BigDecimal(sum));
+    }
+
+    public static TransferCreateEditDto getTransferCreateEditDto(User user, String cardFrom, String cardTo,
+                                                                 BigDecimal sum) {
+        return TransferCreateEditDto.builder()
+                .userId(user.getId())
+                .cardFrom(cardFrom)
+                .cardTo(cardTo)
+                .sum(sum)
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.SigningKeyProperties.PemKey;
+import com.example.bankcards.enumpack.SigningAlgorithm;
+import com.example.bankcards.security.SigningKeys;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.KeyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SigningKeyConfigTest {
+
+    private static final JwtProperties JWT_PROPERTIES = new JwtProperties(Duration.ofMinutes(5), Duration.ofDays(7), 100, Duration.ofHours(1));
+
+    @TempDir
+    private Path directory;
+
+    private final SigningKeyConfig signingKeyConfig = new SigningKeyConfig(new MockEnvironment());
+
+    private KeyPair previous;
+    private KeyPair current;
+
+    @BeforeEach
+    void init() throws NoSuchAlgorithmException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        previous = keyPairGenerator.generateKeyPair();
+        current = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    void signingKeysLoadsPemKeys() throws IOException, JOSEException {
+        SigningKeys signingKeys = signingKeyConfig.signingKeys(properties("current",
+                new PemKey("previous", publicPem("previous", previous), null),
+                new PemKey("current", null, privatePem("current", current))));
+
+        assertThat(signingKeys.activeKid()).isEqualTo("current");
+        assertThat(signingKeys.keys()).extracting(key -> key.getKeyID()).containsExactly("previous", "current");
+        assertThat(signingKeys.keys().get(0).isPrivate()).isFalse();
+        assertThat(signingKeys.keys().get(1).toRSAKey().toRSAPublicKey()).isEqualTo(current.getPublic());
+    }
+
+    @Test
+    void tokenSignedBeforeRotationIsAccepted() throws IOException {
+        PemKey previousKey = new PemKey("previous", publicPem("previous", previous), privatePem("previous", previous));
+        PemKey currentKey = new PemKey("current", null, privatePem("current", current));
+        SecurityConfiguration beforeRotation = new SecurityConfiguration(signingKeyConfig.signingKeys(properties("previous", previousKey)), JWT_PROPERTIES);
+        SecurityConfiguration afterRotation = new SecurityConfiguration(signingKeyConfig.signingKeys(properties("current",
+                new PemKey("previous", previousKey.publicKey(), null), currentKey)), JWT_PROPERTIES);
+
+        String oldToken = encode(beforeRotation);
+        String newToken = encode(afterRotation);
+
+        assertThat(afterRotation.jwtDecoder().decode(oldToken).getSubject()).isEqualTo("ivan@gmail.com");
+        assertThat(afterRotation.jwtDecoder().decode(newToken).getHeaders()).containsEntry("kid", "current");
+        assertThrows(JwtException.class, () -> beforeRotation.jwtDecoder().decode(newToken));
+    }
+
+    @Test
+    void signingKeysFailedIfActiveKeyHasNoPrivateKey() throws IOException {
+        SigningKeyProperties properties = properties("previous", new PemKey("previous", publicPem("previous", previous), null));
+
+        assertThrows(IllegalStateException.class, () -> signingKeyConfig.signingKeys(properties));
+    }
+
+    @Test
+    void signingKeysFailedIfActiveKeyNotFound() throws IOException {
+        SigningKeyProperties properties = properties("unknown", new PemKey("current", null, privatePem("current", current)));
+
+        assertThrows(IllegalStateException.class, () -> signingKeyConfig.signingKeys(properties));
+    }
+
+    @Test
+    void signingKeysFailedIfNotConfigured() {
+        SigningKeyProperties properties = new SigningKeyProperties(SigningAlgorithm.RS256, null, null, List.of());
+
+        assertThrows(IllegalStateException.class, () -> signingKeyConfig.signingKeys(properties));
+    }
+
+    @Test
+    void signingKeysGeneratesTemporaryKeyIfNotConfiguredInTestProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("test");
+        SigningKeys signingKeys = new SigningKeyConfig(environment)
+                .signingKeys(new SigningKeyProperties(SigningAlgorithm.ES256, null, null, List.of()));
+
+        assertThat(signingKeys.keys()).hasSize(1);
+        assertThat(signingKeys.keys().get(0).getKeyID()).isEqualTo(signingKeys.activeKid());
+        assertThat(signingKeys.keys().get(0).getKeyType()).isEqualTo(KeyType.EC);
+    }
+
+    @Test
+    void es256TokenIsSignedAndVerified() throws IOException, NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair ecKeyPair = keyPairGenerator.generateKeyPair();
+        SigningKeys signingKeys = signingKeyConfig.signingKeys(new SigningKeyProperties(SigningAlgorithm.ES256, "ec",
+                null, List.of(new PemKey("ec", publicPem("ec", ecKeyPair), privatePem("ec", ecKeyPair)))));
+        SecurityConfiguration securityConfiguration = new SecurityConfiguration(signingKeys, JWT_PROPERTIES);
+
+        String token = encode(securityConfiguration);
+
+        assertThat(securityConfiguration.jwtDecoder().decode(token).getHeaders())
+                .containsEntry("alg", "ES256")
+                .containsEntry("kid", "ec");
+    }
+
+    @Test
+    void signingKeysFailedIfKeyDoesNotMatchAlgorithm() throws IOException {
+        SigningKeyProperties properties = new SigningKeyProperties(SigningAlgorithm.ES256, "current",
+                null, List.of(new PemKey("current", publicPem("current", current), privatePem("current", current))));
+
+        assertThrows(IllegalStateException.class, () -> signingKeyConfig.signingKeys(properties));
+    }
+
+    private static String encode(SecurityConfiguration securityConfiguration) {
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject("ivan@gmail.com")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+        return securityConfiguration.jwtEncoder().encode(JwtEncoderParameters.from(claims)).getTokenValue();
+    }
+
+    private static SigningKeyProperties properties(String activeKid, PemKey... keys) {
+        return new SigningKeyProperties(SigningAlgorithm.RS256, activeKid, null, List.of(keys));
+    }
+
+    private Resource publicPem(String name, KeyPair keyPair) throws IOException {
+        return pem(name + ".pub", "PUBLIC KEY", keyPair.getPublic().getEncoded());
+    }
+
+    private Resource privatePem(String name, KeyPair keyPair) throws IOException {
+        return pem(name + ".key", "PRIVATE KEY", keyPair.getPrivate().getEncoded());
+    }
+
+    private Resource pem(String fileName, String type, byte[] encoded) throws IOException {
+        String content = "-----BEGIN " + type + "-----\n"
+                         + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(encoded)
+                         + "\n-----END " + type + "-----\n";
+        Path file = directory.resolve(fileName);
+        Files.writeString(file, content);
+        return new FileSystemResource(file);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.LoginDto;
+import com.example.bankcards.dto.RefreshTokenDto;
 import com.example.bankcards.security.AccessToken;
 import com.example.bankcards.security.AuthenticationToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,7 +18,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RequiredArgsConstructor
@@ -43,7 +46,7 @@ class AuthenticationControllerTest {
                 .email("test@gmail.com")
                 .password("test")
                 .build();
-        AccessToken accessToken = new AccessToken("test.test.test");
+        AccessToken accessToken = new AccessToken("test.test.test", "refresh.refresh.refresh", 300);
         doReturn(accessToken).when(authenticationToken).authenticate(loginDto);
 
         mockMvc.perform(post("/api/v1/authentication")
@@ -53,4 +56,41 @@ class AuthenticationControllerTest {
 
         verify(authenticationToken).authenticate(loginDto);
     }
-}
\ No newline at end of file
+
+    @Test
+    void refreshTokenSuccess() throws Exception {
+        RefreshTokenDto refreshTokenDto = new RefreshTokenDto("refresh.refresh.refresh");
+        AccessToken accessToken = new AccessToken("test.test.test", "next.next.next", 300);
+        doReturn(accessToken).when(authenticationToken).refresh(refreshTokenDto);
+
+        mockMvc.perform(post("/api/v1/authentication/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsBytes(refreshTokenDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").value("next.next.next"));
+
+        verify(authenticationToken).refresh(refreshTokenDto);
+    }
+
+    @Test
+    void refreshTokenFailedIfBlank() throws Exception {
+        mockMvc.perform(post("/api/v1/authentication/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"\"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(authenticationToken);
+    }
+
+    @Test
+    void revokeTokenSuccess() throws Exception {
+        RefreshTokenDto refreshTokenDto = new RefreshTokenDto("refresh.refresh.refresh");
+
+        mockMvc.perform(post("/api/v1/authentication/revoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsBytes(refreshTokenDto)))
+                .andExpect(status().isNoContent());
+
+        verify(authenticationToken).revoke(refreshTokenDto);
+    }
+}
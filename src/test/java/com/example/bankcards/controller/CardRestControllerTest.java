@@ -7,6 +7,7 @@ import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enumpack.Role;
 import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.CardFilter;
 import com.example.bankcards.service.CardService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -68,7 +69,7 @@ public class CardRestControllerTest {
         CardFilter filter = CardFilter.builder().build();
         PageRequest pageable = PageRequest.of(0, 20);
         Page<CardReadDto> pageCardReadDto = getPageCardReadDto();
-        doReturn(pageCardReadDto).when(cardService).findAll(filter, pageable);
+        doReturn(pageCardReadDto).when(cardService).findAll(filter, pageable, TotalMode.EXACT);
 
         mockMvc.perform(get("/api/v1/cards")
                         .queryParam("page", String.valueOf(0))
@@ -76,7 +77,7 @@ public class CardRestControllerTest {
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(cardService).findAll(filter, pageable);
+        verify(cardService).findAll(filter, pageable, TotalMode.EXACT);
     }
 
     @Test
@@ -85,7 +86,7 @@ public class CardRestControllerTest {
         PageRequest pageable = PageRequest.of(0, 20);
         Page<CardReadDto> pageCardReadDto = getPageCardReadDto();
         UserReadDto userReadDto = getUserReadDto();
-        doReturn(pageCardReadDto).when(cardService).findAllByUserId(userReadDto.getId(), pageable, filter);
+        doReturn(pageCardReadDto).when(cardService).findAllByUserId(userReadDto.getId(), pageable, filter, TotalMode.EXACT);
 
         mockMvc.perform(get("/api/v1/users/" + userReadDto.getId() + "/cards")
                         .queryParam("page", String.valueOf(0))
@@ -96,7 +97,7 @@ public class CardRestControllerTest {
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(cardService).findAllByUserId(userReadDto.getId(), pageable, filter);
+        verify(cardService).findAllByUserId(userReadDto.getId(), pageable, filter, TotalMode.EXACT);
     }
 
     @Test
@@ -210,6 +211,19 @@ public class CardRestControllerTest {
         verify(cardService).blockingCard(card.getId());
     }
 
+    @Test
+    void setBalanceSlotsSuccess() throws Exception {
+        Card card = getCard();
+        CardReadDto cardReadDto = CardReadDto.builder().balance(card.getBalance()).build();
+        doReturn(cardReadDto).when(cardService).setBalanceSlots(card.getId(), 8);
+
+        mockMvc.perform(put("/api/v1/cards/" + card.getId() + "/balance-slots")
+                        .queryParam("count", "8"))
+                .andExpect(status().isOk());
+
+        verify(cardService).setBalanceSlots(card.getId(), 8);
+    }
+
     @Test
     void deleteSuccess() throws Exception {
         Card card = getCard();
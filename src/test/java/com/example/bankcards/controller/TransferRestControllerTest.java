@@ -3,8 +3,11 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.ExportFormat;
 import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.TransferFilter;
+import com.example.bankcards.service.TransferExportService;
 import com.example.bankcards.service.TransferService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -18,13 +21,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -32,6 +38,8 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -40,6 +48,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RequiredArgsConstructor
@@ -51,6 +61,9 @@ public class TransferRestControllerTest {
     @Mock
     private TransferService transferService;
 
+    @Mock
+    private TransferExportService transferExportService;
+
     @InjectMocks
     private TransferRestController transferRestController;
 
@@ -64,7 +77,7 @@ public class TransferRestControllerTest {
         TransferFilter filter = TransferFilter.builder().build();
         PageRequest pageable = PageRequest.of(0, 20);
         Page<TransferReadDto> pageTransferReadDto = getPageTransferReadDto();
-        doReturn(pageTransferReadDto).when(transferService).findAll(filter, pageable);
+        doReturn(pageTransferReadDto).when(transferService).findAll(filter, pageable, TotalMode.EXACT);
 
         mockMvc.perform(get("/api/v1/transfers")
                         .queryParam("page", String.valueOf(0))
@@ -72,7 +85,7 @@ public class TransferRestControllerTest {
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(transferService).findAll(filter, pageable);
+        verify(transferService).findAll(filter, pageable, TotalMode.EXACT);
     }
 
     @Test
@@ -80,7 +93,7 @@ public class TransferRestControllerTest {
         PageRequest pageable = PageRequest.of(0, 20);
         Page<TransferReadDto> pageTransferReadDto = getPageTransferReadDto();
         User user = getUser();
-        doReturn(pageTransferReadDto).when(transferService).findAllByUserId(user.getId(), pageable);
+        doReturn(pageTransferReadDto).when(transferService).findAllByUserId(user.getId(), pageable, TotalMode.EXACT);
 
         mockMvc.perform(get("/api/v1/users/" + user.getId() + "/transfers")
                         .queryParam("page", String.valueOf(0))
@@ -91,7 +104,36 @@ public class TransferRestControllerTest {
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(transferService).findAllByUserId(user.getId(), pageable);
+        verify(transferService).findAllByUserId(user.getId(), pageable, TotalMode.EXACT);
+    }
+
+    @Test
+    void findAllByUserIdAfter() throws Exception {
+        User user = getUser();
+        CursorPageResponse<TransferReadDto> response = new CursorPageResponse<>(List.of(getTransferReadDto()), "cursor");
+        doReturn(response).when(transferService).findAllByUserIdAfter(user.getId(), "abc", 10);
+
+        mockMvc.perform(get("/api/v1/users/" + user.getId() + "/transfers")
+                        .queryParam("after", "abc")
+                        .queryParam("size", String.valueOf(10)))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.nextCursor").value("cursor"));
+
+        verify(transferService).findAllByUserIdAfter(user.getId(), "abc", 10);
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        doReturn(0L).when(transferExportService).export(eq(ExportFormat.CSV), any(OutputStream.class));
+
+        mockMvc.perform(get("/api/v1/transfers/export")
+                        .queryParam("format", ExportFormat.CSV.name()))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=transfers.csv"));
+
+        verify(transferExportService).export(eq(ExportFormat.CSV), any(OutputStream.class));
     }
 
     @Test
@@ -114,7 +156,7 @@ public class TransferRestControllerTest {
         User user = getUser();
         TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
         TransferReadDto transferReadDto = getTransferReadDto();
-        doReturn(transferReadDto).when(transferService).create(transferCreateEditDto);
+        doReturn(transferReadDto).when(transferService).create(transferCreateEditDto, null);
 
         mockMvc.perform(post("/api/v1/users/" + user.getId() +"/transfers")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -123,7 +165,46 @@ public class TransferRestControllerTest {
                                 .writeValueAsBytes(transferCreateEditDto)))
                 .andExpect(status().isCreated());
 
-        verify(transferService).create(transferCreateEditDto);
+        verify(transferService).create(transferCreateEditDto, null);
+    }
+
+    @Test
+    void createWithIdempotencyKey() throws Exception {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        String idempotencyKey = "5f1c2b9e-8d1a-4a57-9a0e-3f6c1b2d7e41";
+        doReturn(transferReadDto).when(transferService).create(transferCreateEditDto, idempotencyKey);
+
+        mockMvc.perform(post("/api/v1/users/" + user.getId() + "/transfers")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper()
+                                .registerModule(new JavaTimeModule())
+                                .writeValueAsBytes(transferCreateEditDto)))
+                .andExpect(status().isCreated());
+
+        verify(transferService).create(transferCreateEditDto, idempotencyKey);
+    }
+
+    @Test
+    void createFailedIfIdempotencyKeyIsBlank() throws Exception {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+
+        for (String idempotencyKey : List.of("", "   ")) {
+            MvcResult mvcResult = mockMvc.perform(post("/api/v1/users/" + user.getId() + "/transfers")
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(new ObjectMapper()
+                                    .registerModule(new JavaTimeModule())
+                                    .writeValueAsBytes(transferCreateEditDto)))
+                    .andExpect(status().isBadRequest())
+                    .andReturn();
+
+            assertInstanceOf(HandlerMethodValidationException.class, mvcResult.getResolvedException());
+        }
+        verifyNoInteractions(transferService);
     }
 
     @Test
@@ -143,6 +224,64 @@ public class TransferRestControllerTest {
         verifyNoInteractions(transferService);
     }
 
+    @Test
+    void createBatchSuccess() throws Exception {
+        User user = getUser();
+        List<TransferCreateEditDto> transferCreateEditDtos = List.of(getTransferCreateEditDto(), getTransferCreateEditDto());
+        List<TransferBatchResultDto> results = List.of(
+                new TransferBatchResultDto(0, true, getTransferReadDto(), null),
+                new TransferBatchResultDto(1, false, null, "Insufficient funds on the card"));
+        doReturn(results).when(transferService).createBatch(user.getId(), transferCreateEditDtos);
+
+        mockMvc.perform(post("/api/v1/users/" + user.getId() + "/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper()
+                                .registerModule(new JavaTimeModule())
+                                .writeValueAsBytes(transferCreateEditDtos)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        verify(transferService).createBatch(user.getId(), transferCreateEditDtos);
+    }
+
+    @Test
+    void createBatchFailedIfNoValidValue() throws Exception {
+        User user = getUser();
+        List<TransferCreateEditDto> transferCreateEditDtos = List.of(getTransferCreateEditDto(),
+                TransferCreateEditDto.builder().build());
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/users/" + user.getId() + "/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper()
+                                .registerModule(new JavaTimeModule())
+                                .writeValueAsBytes(transferCreateEditDtos)))
+                .andExpect(status().is4xxClientError())
+                .andReturn();
+
+        assertNotNull(mvcResult.getResolvedException());
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void createBatchFailedIfTooManyTransfers() throws Exception {
+        User user = getUser();
+        List<TransferCreateEditDto> transferCreateEditDtos = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            transferCreateEditDtos.add(getTransferCreateEditDto());
+        }
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/users/" + user.getId() + "/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper()
+                                .registerModule(new JavaTimeModule())
+                                .writeValueAsBytes(transferCreateEditDtos)))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertInstanceOf(HandlerMethodValidationException.class, mvcResult.getResolvedException());
+        verifyNoInteractions(transferService);
+    }
+
     @Test
     void updateSuccess() throws Exception {
         TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
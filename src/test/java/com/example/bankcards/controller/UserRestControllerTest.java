@@ -4,6 +4,7 @@ import com.example.bankcards.dto.UserCreateEditDto;
 import com.example.bankcards.dto.UserReadDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.UserFilter;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,6 +19,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -38,6 +41,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RequiredArgsConstructor
@@ -62,7 +66,7 @@ public class UserRestControllerTest {
         UserFilter filter = UserFilter.builder().build();
         PageRequest pageable = PageRequest.of(0, 20);
         Page<UserReadDto> pageUserReadDto = getPageUserReadDto();
-        doReturn(pageUserReadDto).when(userService).findAll(filter, pageable);
+        doReturn(pageUserReadDto).when(userService).findAll(filter, pageable, TotalMode.EXACT);
 
         mockMvc.perform(get("/api/v1/users")
                         .queryParam("page", String.valueOf(0))
@@ -70,7 +74,38 @@ public class UserRestControllerTest {
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(userService).findAll(filter, pageable);
+        verify(userService).findAll(filter, pageable, TotalMode.EXACT);
+    }
+
+    @Test
+    void findAllWithoutTotal() throws Exception {
+        UserFilter filter = UserFilter.builder().build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        Slice<UserReadDto> sliceUserReadDto = new SliceImpl<>(getPageUserReadDto().getContent(), pageable, true);
+        doReturn(sliceUserReadDto).when(userService).findAll(filter, pageable, TotalMode.NONE);
+
+        mockMvc.perform(get("/api/v1/users")
+                        .queryParam("page", String.valueOf(0))
+                        .queryParam("size", String.valueOf(20))
+                        .queryParam("withTotal", String.valueOf(false)))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.metadata.totalElement").doesNotExist())
+                .andExpect(jsonPath("$.metadata.hasNext").value(true));
+
+        verify(userService).findAll(filter, pageable, TotalMode.NONE);
+    }
+
+    @Test
+    void findAllWithEstimatedTotal() throws Exception {
+        UserFilter filter = UserFilter.builder().build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        doReturn(getPageUserReadDto()).when(userService).findAll(filter, pageable, TotalMode.ESTIMATED);
+
+        mockMvc.perform(get("/api/v1/users")
+                        .queryParam("estimatedTotal", String.valueOf(true)))
+                .andExpect(status().is2xxSuccessful());
+
+        verify(userService).findAll(filter, pageable, TotalMode.ESTIMATED);
     }
 
     @Test
@@ -0,0 +1,65 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SqlStatementMetricsFilter filter = new SqlStatementMetricsFilter(meterRegistry);
+    private final SqlStatementListener listener = new SqlStatementListener(Duration.ofMillis(100));
+
+    @Test
+    void doFilterRecordsStatementsPerEndpoint() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cards/1");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/cards/{id}");
+            listener.afterQuery(executionInfo(3), List.of(new QueryInfo("select * from card where id = ?")));
+            listener.afterQuery(executionInfo(150), List.of(new QueryInfo("select * from users where id = ?")));
+        });
+
+        DistributionSummary statements = meterRegistry.get(SqlStatementMetricsFilter.STATEMENTS)
+                .tags("method", "GET", "uri", "/api/v1/cards/{id}").summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get(SqlStatementMetricsFilter.TIME).timer().totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo(153);
+    }
+
+    @Test
+    void afterQueryOutsideRequestIsNotCounted() throws Exception {
+        listener.afterQuery(executionInfo(1), List.of(new QueryInfo("select 1")));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/cards"), new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        assertThat(meterRegistry.get(SqlStatementMetricsFilter.STATEMENTS).summary().totalAmount()).isZero();
+    }
+
+    @Test
+    void redactRemovesLiterals() {
+        String query = "select c1_0.id from card c1_0\n where c1_0.number = '4276550012345678' and c1_0.balance > 100.50";
+
+        assertThat(SqlStatementListener.redact(query))
+                .isEqualTo("select c1_0.id from card c1_0 where c1_0.number = ? and c1_0.balance > ?");
+    }
+
+    private static ExecutionInfo executionInfo(long elapsedMillis) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(elapsedMillis);
+        return executionInfo;
+    }
+}
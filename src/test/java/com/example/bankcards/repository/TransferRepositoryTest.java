@@ -0,0 +1,94 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.bankcards.TestFixtures.getTransfer;
+import static com.example.bankcards.TestFixtures.getUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransferRepositoryTest {
+
+    private static final int ROWS = 1000;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAllInsertsTransfersInJdbcBatches() {
+        User user = userRepository.save(getUser());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long startTime = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> transferRepository.saveAll(getTransfers(user)));
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        log.info("Inserted {} transfers in {} ms ({} rows/s) with {} prepared statements", ROWS, elapsedMillis,
+                ROWS * 1000L / Math.max(elapsedMillis, 1), statistics.getPrepareStatementCount());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        // 20 пакетов по 50 строк и 20 обращений к последовательности вместо 1000 отдельных INSERT
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * ROWS / 50);
+    }
+
+    @Test
+    void findNextByUserIdWalksHistoryWithoutGapsOrDuplicates() {
+        User user = userRepository.save(getUser());
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            transfers.add(getTransfer(user, LocalDate.of(2025, 1, 1).plusDays(i % 4)));
+        }
+        transferRepository.saveAll(transfers);
+
+        List<Long> visitedIds = new ArrayList<>();
+        List<Transfer> page = transferRepository.findFirstByUserId(user.getId(), Limit.of(10));
+        while (!page.isEmpty()) {
+            page.forEach(transfer -> visitedIds.add(transfer.getId()));
+            Transfer last = page.get(page.size() - 1);
+            page = transferRepository.findNextByUserId(user.getId(), last.getTransferDate(), last.getId(), Limit.of(10));
+        }
+
+        List<Long> expectedIds = transfers.stream()
+                .sorted(Comparator.comparing(Transfer::getTransferDate).thenComparing(Transfer::getId).reversed())
+                .map(Transfer::getId)
+                .toList();
+        assertThat(visitedIds).containsExactlyElementsOf(expectedIds);
+    }
+
+    private static List<Transfer> getTransfers(User user) {
+        List<Transfer> transfers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            transfers.add(getTransfer(user, LocalDate.now()));
+        }
+        return transfers;
+    }
+}
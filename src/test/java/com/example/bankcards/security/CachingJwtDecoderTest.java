@@ -0,0 +1,74 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+    @Mock
+    private JwtDecoder delegate;
+
+    private CachingJwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setup() {
+        jwtDecoder = new CachingJwtDecoder(delegate, 100);
+    }
+
+    @Test
+    void decodeVerifiesTokenOnce() {
+        Jwt jwt = getJwt("token", Instant.now().plusSeconds(60));
+        doReturn(jwt).when(delegate).decode("token");
+
+        assertThat(jwtDecoder.decode("token")).isEqualTo(jwt);
+        assertThat(jwtDecoder.decode("token")).isEqualTo(jwt);
+
+        verify(delegate, times(1)).decode("token");
+    }
+
+    @Test
+    void decodeDoesNotCacheInvalidToken() {
+        doThrow(new BadJwtException("invalid")).when(delegate).decode("token");
+
+        assertThrows(BadJwtException.class, () -> jwtDecoder.decode("token"));
+        assertThrows(BadJwtException.class, () -> jwtDecoder.decode("token"));
+
+        verify(delegate, times(2)).decode("token");
+    }
+
+    @Test
+    void decodeDoesNotCacheTokenWithoutExpiry() {
+        Jwt jwt = getJwt("token", null);
+        doReturn(jwt).when(delegate).decode("token");
+
+        jwtDecoder.decode("token");
+        jwtDecoder.decode("token");
+
+        verify(delegate, times(2)).decode("token");
+    }
+
+    private static Jwt getJwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "ES256")
+                .subject("ivan@gmail.com")
+                .issuedAt(Instant.now().minusSeconds(1))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingPasswordEncoderTest {
+
+    private static final String ENCODED = "{bcrypt}$2a$10$encoded";
+
+    @Mock
+    private PasswordEncoder delegate;
+
+    private CachingPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setup() {
+        passwordEncoder = new CachingPasswordEncoder(delegate, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void matchesVerifiesOnceForRepeatedCredentials() {
+        doReturn(true).when(delegate).matches("secret", ENCODED);
+
+        assertThat(passwordEncoder.matches("secret", ENCODED)).isTrue();
+        assertThat(passwordEncoder.matches("secret", ENCODED)).isTrue();
+
+        verify(delegate, times(1)).matches("secret", ENCODED);
+    }
+
+    @Test
+    void matchesDoesNotCacheFailedVerification() {
+        doReturn(false).when(delegate).matches("wrong", ENCODED);
+
+        assertThat(passwordEncoder.matches("wrong", ENCODED)).isFalse();
+        assertThat(passwordEncoder.matches("wrong", ENCODED)).isFalse();
+
+        verify(delegate, times(2)).matches("wrong", ENCODED);
+    }
+
+    @Test
+    void matchesVerifiesAgainAfterPasswordChange() {
+        String changed = "{bcrypt}$2a$10$changed";
+        doReturn(true).when(delegate).matches("secret", ENCODED);
+        doReturn(false).when(delegate).matches("secret", changed);
+
+        assertThat(passwordEncoder.matches("secret", ENCODED)).isTrue();
+        assertThat(passwordEncoder.matches("secret", changed)).isFalse();
+    }
+
+    @Test
+    void encodeDelegates() {
+        doReturn(ENCODED).when(delegate).encode("secret");
+
+        assertThat(passwordEncoder.encode("secret")).isEqualTo(ENCODED);
+    }
+}
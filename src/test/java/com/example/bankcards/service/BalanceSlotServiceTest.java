@@ -0,0 +1,131 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardReadDto;
+import com.example.bankcards.entity.CardBalanceSlot;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.filter.CardFilter;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.example.bankcards.TestFixtures.getCardCreateEditDto;
+import static com.example.bankcards.TestFixtures.getRandomCardNumber;
+import static com.example.bankcards.TestFixtures.getTransferCreateEditDto;
+import static com.example.bankcards.TestFixtures.getUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceSlotServiceTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardBalanceSlotRepository cardBalanceSlotRepository;
+
+    @Test
+    void transfersToCardWithSlotsCreditSlotsAndReadsReturnTotalBalance() {
+        User user = userRepository.save(getUser());
+        String numberCardFrom = getRandomCardNumber();
+        String numberCardTo = getRandomCardNumber();
+        CardReadDto cardFrom = cardService.create(getCardCreateEditDto(user, numberCardFrom, "100.00"));
+        CardReadDto cardTo = cardService.create(getCardCreateEditDto(user, numberCardTo, "50.00"));
+        cardService.setBalanceSlots(cardTo.getId(), 4);
+
+        for (int i = 0; i < 3; i++) {
+            transferService.create(getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "10.00"));
+        }
+
+        assertThat(cardRepository.findById(cardTo.getId()).orElseThrow().getBalance()).isEqualByComparingTo("50.00");
+        assertThat(getSlotBalance(cardTo.getId())).isEqualByComparingTo("30.00");
+        assertThat(cardService.getBalance(cardTo.getId())).isEqualByComparingTo("80.00");
+        assertThat(cardService.findById(cardTo.getId()).getBalance()).isEqualByComparingTo("80.00");
+        assertThat(cardService.findAllByUserId(user.getId(), PageRequest.of(0, 10), CardFilter.builder().build()))
+                .extracting(CardReadDto::getBalance)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyInAnyOrder(new BigDecimal("70.00"), new BigDecimal("80.00"));
+        assertThat(cardService.getBalance(cardFrom.getId())).isEqualByComparingTo("70.00");
+        assertThat(ledgerService.reconcile())
+                .extracting(LedgerEntryRepository.BalanceMismatch::getCardId)
+                .doesNotContain(cardFrom.getId(), cardTo.getId());
+    }
+
+    @Test
+    void debitDrainsSlotsIfMainBalanceIsNotEnough() {
+        User user = userRepository.save(getUser());
+        String numberCardFrom = getRandomCardNumber();
+        String numberCardTo = getRandomCardNumber();
+        CardReadDto cardFrom = cardService.create(getCardCreateEditDto(user, numberCardFrom, "100.00"));
+        CardReadDto cardTo = cardService.create(getCardCreateEditDto(user, numberCardTo, "50.00"));
+        cardService.setBalanceSlots(cardTo.getId(), 4);
+        transferService.create(getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "30.00"));
+
+        transferService.create(getTransferCreateEditDto(user, numberCardTo, numberCardFrom, "60.00"));
+
+        assertThat(cardRepository.findById(cardTo.getId()).orElseThrow().getBalance()).isEqualByComparingTo("20.00");
+        assertThat(getSlotBalance(cardTo.getId())).isEqualByComparingTo("0.00");
+        assertThat(cardService.getBalance(cardTo.getId())).isEqualByComparingTo("20.00");
+        assertThat(cardService.getBalance(cardFrom.getId())).isEqualByComparingTo("130.00");
+        assertThat(ledgerService.reconcile())
+                .extracting(LedgerEntryRepository.BalanceMismatch::getCardId)
+                .doesNotContain(cardFrom.getId(), cardTo.getId());
+    }
+
+    @Test
+    void setBalanceSlotsKeepsTotalBalance() {
+        User user = userRepository.save(getUser());
+        String numberCardFrom = getRandomCardNumber();
+        String numberCardTo = getRandomCardNumber();
+        cardService.create(getCardCreateEditDto(user, numberCardFrom, "100.00"));
+        CardReadDto cardTo = cardService.create(getCardCreateEditDto(user, numberCardTo, "50.00"));
+        cardService.setBalanceSlots(cardTo.getId(), 4);
+        transferService.create(getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "25.00"));
+
+        CardReadDto actualResult = cardService.setBalanceSlots(cardTo.getId(), 0);
+
+        assertThat(actualResult.getBalance()).isEqualByComparingTo("75.00");
+        assertThat(cardRepository.findById(cardTo.getId()).orElseThrow().getBalance()).isEqualByComparingTo("75.00");
+        assertThat(cardBalanceSlotRepository.findAll())
+                .noneMatch(slot -> slot.getCardId().equals(cardTo.getId()));
+    }
+
+    @Test
+    void setBalanceSlotsFailedIfCountOutOfRange() {
+        User user = userRepository.save(getUser());
+        CardReadDto card = cardService.create(getCardCreateEditDto(user, getRandomCardNumber(), "100.00"));
+
+        assertThrows(IllegalArgumentException.class, () -> cardService.setBalanceSlots(card.getId(), -1));
+        assertThrows(IllegalArgumentException.class, () -> cardService.setBalanceSlots(card.getId(), 1_000));
+    }
+
+    private BigDecimal getSlotBalance(Long cardId) {
+        List<CardBalanceSlot> slots = cardBalanceSlotRepository.findAll();
+        return slots.stream()
+                .filter(slot -> slot.getCardId().equals(cardId))
+                .map(CardBalanceSlot::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
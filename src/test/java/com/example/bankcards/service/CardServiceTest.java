@@ -1,5 +1,8 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.config.BalanceCacheProperties;
+import com.example.bankcards.config.CardSearchProperties;
 import com.example.bankcards.dto.CardCreateEditDto;
 import com.example.bankcards.dto.CardReadDto;
 import com.example.bankcards.dto.UserReadDto;
@@ -10,21 +13,30 @@ import com.example.bankcards.enumpack.Status;
 import com.example.bankcards.filter.CardFilter;
 import com.example.bankcards.mapper.CardCreateEditMapper;
 import com.example.bankcards.mapper.CardReadMapper;
+import com.example.bankcards.metrics.OperationMetrics;
 import com.example.bankcards.predicate.QPredicate;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.Base64Codec;
+import com.example.bankcards.util.CardNumberHash;
 import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -35,8 +47,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -52,12 +66,26 @@ public class CardServiceTest {
     @Mock
     private CardCreateEditMapper cardCreateEditMapper;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
     @InjectMocks
     private CardService cardService;
 
+    private MeterRegistry meterRegistry;
+
+    private final CardNumberHash cardNumberHash = new CardNumberHash(new CardSearchProperties("test-card-search-key"));
+
     @BeforeEach
     void init() {
-        cardService = new CardService(cardRepository, cardReadMapper, cardCreateEditMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        CardBalanceCache cardBalanceCache = new CardBalanceCache(new BalanceCacheProperties(100, Duration.ofMinutes(1)),
+                meterRegistry);
+        cardService = new CardService(cardRepository, cardReadMapper, cardCreateEditMapper, meterRegistry,
+                cardBalanceCache, ledgerService, balanceSlotService, cardNumberHash);
     }
 
     @Test
@@ -77,13 +105,86 @@ public class CardServiceTest {
         verifyNoInteractions(cardCreateEditMapper);
     }
 
+    @Test
+    void findAllByLastFourDigitsUsesHashColumn() {
+        CardFilter filter = CardFilter.builder().number("1234").build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        Predicate predicate = card.lastFourHash.eq(cardNumberHash.hashLastFour("1234"));
+        doReturn(Page.empty()).when(cardRepository).findAll(predicate, pageable);
+
+        Page<CardReadDto> actualResult = cardService.findAll(filter, pageable);
+
+        assertThat(actualResult).isEmpty();
+        verify(cardRepository).findAll(predicate, pageable);
+    }
+
+    @Test
+    void findAllByBinAndLastFourDigitsUsesHashColumn() {
+        CardFilter filter = CardFilter.builder().number("4276551234").build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        Predicate predicate = card.binLastFourHash.eq(cardNumberHash.hashBinLastFour("4276551234"));
+        doReturn(Page.empty()).when(cardRepository).findAll(predicate, pageable);
+
+        Page<CardReadDto> actualResult = cardService.findAll(filter, pageable);
+
+        assertThat(actualResult).isEmpty();
+        assertThat(cardNumberHash.hashBinLastFour("4276551234"))
+                .isEqualTo(cardNumberHash.hashBinLastFour("4276550000001234"));
+    }
+
+    @Test
+    void findAllByFullNumberUsesEncodedColumn() {
+        CardFilter filter = CardFilter.builder().number("1234123412341234").build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        Predicate predicate = card.number.eq(Base64Codec.encodeCardNumber("1234123412341234"));
+        doReturn(Page.empty()).when(cardRepository).findAll(predicate, pageable);
+
+        Page<CardReadDto> actualResult = cardService.findAll(filter, pageable);
+
+        assertThat(actualResult).isEmpty();
+    }
+
+    @Test
+    void findAllIfNumberFilterInvalid() {
+        PageRequest pageable = PageRequest.of(0, 20);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> cardService.findAll(CardFilter.builder().number("12a4").build(), pageable));
+        assertThrows(IllegalArgumentException.class,
+                () -> cardService.findAll(CardFilter.builder().number("123456").build(), pageable));
+        assertThrows(IllegalArgumentException.class,
+                () -> cardService.findAll(CardFilter.builder().number("4276551231234").build(), pageable));
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void findAllByUserIdAppliesUserAndFilter() {
+        CardFilter filter = CardFilter.builder()
+                .expirationDate(LocalDate.of(2030, 1, 1))
+                .build();
+        PageRequest pageable = PageRequest.of(1, 20);
+        User user = getUser();
+        Card card = getCard();
+        CardReadDto cardReadDto = getCardReadDto();
+        Predicate predicate = getUserPredicate(user.getId(), filter);
+        PageRequest sortedPageable = PageRequest.of(1, 20,
+                Sort.by(Sort.Order.desc("expirationDate"), Sort.Order.desc("id")));
+        doReturn(getPageCard()).when(cardRepository).findAll(predicate, sortedPageable);
+        doReturn(cardReadDto).when(cardReadMapper).map(card);
+
+        Page<CardReadDto> actualResult = cardService.findAllByUserId(user.getId(), pageable, filter);
+
+        assertThat(actualResult).hasSize(2);
+        verify(cardRepository).findAll(predicate, sortedPageable);
+        verifyNoInteractions(cardCreateEditMapper);
+    }
+
     @Test
     void findAllByUserIdIfUserIdNoTExist() {
         CardFilter filter = CardFilter.builder().build();
         PageRequest pageable = PageRequest.of(0, 20);
-        Predicate predicate = getPredicate(filter);
         User user = getUser();
-        doReturn(Page.empty()).when(cardRepository).findAllByUserId(user.getId(), pageable, predicate);
+        doReturn(Page.empty()).when(cardRepository).findAll(any(Predicate.class), any(Pageable.class));
 
         Page<CardReadDto> actualResult = cardService.findAllByUserId(user.getId(), pageable, filter);
 
@@ -118,19 +219,44 @@ public class CardServiceTest {
     @Test
     void getBalanceSuccess() {
         Card card = getCard();
-        Optional<Card> optionalCard = Optional.of(card);
-        doReturn(optionalCard).when(cardRepository).findById(card.getId());
+        doReturn(Optional.of(getCardBalance(card))).when(cardRepository).findBalanceById(card.getId());
 
         BigDecimal actualResult = cardService.getBalance(card.getId());
 
         verifyNoInteractions(cardCreateEditMapper);
         assertThat(actualResult).isEqualTo(card.getBalance());
-        verify(cardRepository).findById(card.getId());
+        verify(cardRepository).findBalanceById(card.getId());
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void getBalanceServedFromCacheUntilInvalidated() {
+        Card card = getCard();
+        doReturn(Optional.of(getCardBalance(card))).when(cardRepository).findBalanceById(card.getId());
+        doReturn(Optional.of(card.getBalance())).when(cardRepository).findBalanceByNumber(card.getNumber());
+
+        cardService.getBalance(card.getId());
+        cardService.getBalance(card.getId());
+        BigDecimal actualResult = cardService.getBalance(card.getId());
+
+        assertThat(actualResult).isEqualTo(card.getBalance());
+        verify(cardRepository).findBalanceById(card.getId());
+        verify(cardRepository).findBalanceByNumber(card.getNumber());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "card.balance").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "card.number").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+
+        doReturn(Optional.of(card)).when(cardRepository).findById(card.getId());
+        cardService.delete(card.getId());
+        doReturn(Optional.empty()).when(cardRepository).findBalanceById(card.getId());
+
+        assertThrows(EntityNotFoundException.class, () -> cardService.getBalance(card.getId()));
     }
 
     @Test
     void getBalanceFailedIfCardNotExist() {
-        doReturn(Optional.empty()).when(cardRepository).findById(any());
+        doReturn(Optional.empty()).when(cardRepository).findBalanceById(any());
 
         verifyNoInteractions(cardCreateEditMapper, cardReadMapper);
         assertThrows(EntityNotFoundException.class, () -> cardService.getBalance(any()));
@@ -164,7 +290,7 @@ public class CardServiceTest {
         Card card = getCard();
         CardReadDto cardReadDto = getCardReadDto();
         CardCreateEditDto cardCreateEditDto = getCardCreateEditDto();
-        doReturn(Optional.of(card)).when(cardRepository).findById(card.getId());
+        doReturn(Optional.of(card)).when(cardRepository).findForUpdateById(card.getId());
         doReturn(card).when(cardCreateEditMapper).map(cardCreateEditDto, card);
         doReturn(card).when(cardRepository).saveAndFlush(card);
         doReturn(cardReadDto).when(cardReadMapper).map(card);
@@ -173,12 +299,14 @@ public class CardServiceTest {
 
         assertThat(actualResult).isEqualTo(cardReadDto);
         verify(cardRepository).saveAndFlush(card);
-        verify(cardRepository).findById(card.getId());
+        InOrder inOrder = inOrder(cardRepository, balanceSlotService);
+        inOrder.verify(cardRepository).findForUpdateById(card.getId());
+        inOrder.verify(balanceSlotService).drain(card);
     }
 
     @Test
     void updateFailedIfCardNotFound() {
-        doThrow(EntityNotFoundException.class).when(cardRepository).findById(any());
+        doThrow(EntityNotFoundException.class).when(cardRepository).findForUpdateById(any());
 
         assertThrows(EntityNotFoundException.class, () -> cardService.update(any(), getCardCreateEditDto()));
         verifyNoInteractions(cardReadMapper, cardCreateEditMapper);
@@ -187,7 +315,7 @@ public class CardServiceTest {
     @Test
     void updateFailedIfNoValidValue() {
         Card card = getCard();
-        doReturn(Optional.of(card)).when(cardRepository).findById(card.getId());
+        doReturn(Optional.of(card)).when(cardRepository).findForUpdateById(card.getId());
 
         assertThrows(IllegalArgumentException.class, () -> cardService.update(card.getId(), any()));
         verifyNoInteractions(cardReadMapper);
@@ -206,6 +334,8 @@ public class CardServiceTest {
         CardReadDto actualResult = cardService.blockingCard(card.getId());
 
         assertThat(actualResult.getStatus()).isEqualTo(Status.BLOCKED);
+        assertThat(meterRegistry.get(OperationMetrics.CARD_BLOCKING)
+                .tag(OperationMetrics.OUTCOME_TAG, OperationMetrics.SUCCESS).timer().count()).isEqualTo(1);
         verify(cardRepository).findById(card.getId());
         verify(cardRepository).saveAndFlush(card);
     }
@@ -319,6 +449,20 @@ public class CardServiceTest {
                 .build();
     }
 
+    private static CardRepository.CardBalance getCardBalance(Card card) {
+        return new CardRepository.CardBalance() {
+            @Override
+            public String getNumber() {
+                return card.getNumber();
+            }
+
+            @Override
+            public BigDecimal getBalance() {
+                return card.getBalance();
+            }
+        };
+    }
+
     private static Page<Card> getPageCard() {
         List<Card> cardList = new ArrayList<>();
         User user = getUser();
@@ -343,9 +487,15 @@ public class CardServiceTest {
         return new PageImpl<>(cardList);
     }
 
+    private static Predicate getUserPredicate(Long userId, CardFilter cardFilter) {
+        return QPredicate.builder()
+                .add(userId, card.user.id::eq)
+                .add(cardFilter.getExpirationDate(), card.expirationDate::before)
+                .buildAnd();
+    }
+
     private static Predicate getPredicate(CardFilter cardFilter) {
         return  QPredicate.builder()
-                .add(cardFilter.getNumber(), card.number::contains)
                 .add(cardFilter.getExpirationDate(), card.expirationDate::before)
                 .buildAnd();
     }
@@ -1,9 +1,11 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.JwtProperties;
 import com.example.bankcards.enumpack.Role;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,7 +16,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -24,6 +28,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class JwtAccessTokenServiceTest {
@@ -36,7 +41,8 @@ class JwtAccessTokenServiceTest {
 
     @BeforeEach
     void init() {
-        jwtAccessTokenService = new JwtAccessTokenService(jwtEncoder);
+        jwtAccessTokenService = new JwtAccessTokenService(jwtEncoder,
+                new JwtProperties(Duration.ofMinutes(5), Duration.ofDays(7), 0, Duration.ofHours(1)));
     }
 
     @Test
@@ -64,8 +70,41 @@ class JwtAccessTokenServiceTest {
         assertThat(actualResult).isEqualTo(tokenValue);
     }
 
+    @Test
+    void generateIdTokenUsesConfiguredLifetime() {
+        UserDetails userDetails = new User("ivan@gmail.com", "123", List.of(Role.USER));
+        Jwt jwt = new Jwt("access", Instant.now(), Instant.now().plusSeconds(300), Map.of("alg", "RS256"), Map.of("sub", "ivan@gmail.com"));
+        doReturn(jwt).when(jwtEncoder).encode(any());
+        ArgumentCaptor<JwtEncoderParameters> parameters = ArgumentCaptor.forClass(JwtEncoderParameters.class);
+
+        jwtAccessTokenService.generateIdToken(userDetails);
+
+        verify(jwtEncoder).encode(parameters.capture());
+        JwtClaimsSet claims = parameters.getValue().getClaims();
+        assertThat(Duration.between(claims.getIssuedAt(), claims.getExpiresAt())).isEqualTo(Duration.ofMinutes(5));
+        assertThat(claims.<Object>getClaim(JwtAccessTokenService.TOKEN_TYPE_CLAIM)).isNull();
+    }
+
+    @Test
+    void generateRefreshTokenHasTypeAndId() {
+        UserDetails userDetails = new User("ivan@gmail.com", "123", List.of(Role.USER));
+        Jwt jwt = new Jwt("refresh", Instant.now(), Instant.now().plusSeconds(60), Map.of("alg", "RS256"), Map.of("sub", "ivan@gmail.com"));
+        doReturn(jwt).when(jwtEncoder).encode(any());
+        ArgumentCaptor<JwtEncoderParameters> parameters = ArgumentCaptor.forClass(JwtEncoderParameters.class);
+
+        String actualResult = jwtAccessTokenService.generateRefreshToken(userDetails);
+
+        assertThat(actualResult).isEqualTo("refresh");
+        verify(jwtEncoder).encode(parameters.capture());
+        JwtClaimsSet claims = parameters.getValue().getClaims();
+        assertThat(claims.getId()).isNotBlank();
+        assertThat(claims.<String>getClaim(JwtAccessTokenService.TOKEN_TYPE_CLAIM)).isEqualTo(JwtAccessTokenService.REFRESH_TOKEN_TYPE);
+        assertThat(claims.<Object>getClaim("scope")).isNull();
+        assertThat(Duration.between(claims.getIssuedAt(), claims.getExpiresAt())).isEqualTo(Duration.ofDays(7));
+    }
+
     @Test
     void generateIdTokenFailedIfNotCreateDUserDetailsFromAuthentication() {
-        assertThrows(RuntimeException.class, () -> jwtAccessTokenService.generateIdToken(null));
+        assertThrows(RuntimeException.class, () -> jwtAccessTokenService.generateIdToken((Authentication) null));
     }
 }
\ No newline at end of file
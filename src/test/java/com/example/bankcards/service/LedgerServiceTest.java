@@ -0,0 +1,125 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardReadDto;
+import com.example.bankcards.dto.TransferReadDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static com.example.bankcards.TestFixtures.getCardCreateEditDto;
+import static com.example.bankcards.TestFixtures.getRandomCardNumber;
+import static com.example.bankcards.TestFixtures.getTransferCreateEditDto;
+import static com.example.bankcards.TestFixtures.getUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LedgerServiceTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void ledgerBalanceFollowsTransfersAcrossSnapshots() {
+        User user = userRepository.save(getUser());
+        String numberCardFrom = getRandomCardNumber();
+        String numberCardTo = getRandomCardNumber();
+        CardReadDto cardFrom = cardService.create(getCardCreateEditDto(user, numberCardFrom, "100.00"));
+        CardReadDto cardTo = cardService.create(getCardCreateEditDto(user, numberCardTo, "50.00"));
+
+        transferService.create(getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "30.00"));
+        assertThat(ledgerService.takeSnapshots(Instant.now())).isGreaterThanOrEqualTo(2);
+        transferService.create(getTransferCreateEditDto(user, numberCardTo, numberCardFrom, "5.00"));
+        cardService.update(cardTo.getId(), getCardCreateEditDto(user, numberCardTo, "200.00"));
+
+        assertThat(ledgerService.calculateBalance(cardFrom.getId())).isEqualByComparingTo("75.00");
+        assertThat(ledgerService.calculateBalance(cardTo.getId())).isEqualByComparingTo("200.00");
+        assertThat(ledgerService.reconcile())
+                .extracting(LedgerEntryRepository.BalanceMismatch::getCardId)
+                .doesNotContain(cardFrom.getId(), cardTo.getId());
+    }
+
+    @Test
+    void createBatchPostsEveryTransferToLedger() {
+        User user = userRepository.save(getUser());
+        String numberCardFrom = getRandomCardNumber();
+        String numberCardTo = getRandomCardNumber();
+        CardReadDto cardFrom = cardService.create(getCardCreateEditDto(user, numberCardFrom, "100.00"));
+        CardReadDto cardTo = cardService.create(getCardCreateEditDto(user, numberCardTo, "50.00"));
+
+        transferService.createBatch(user.getId(), List.of(
+                getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "30.00"),
+                getTransferCreateEditDto(user, numberCardTo, numberCardFrom, "10.00"),
+                getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "15.00")));
+
+        assertThat(ledgerService.calculateBalance(cardFrom.getId())).isEqualByComparingTo("65.00");
+        assertThat(ledgerService.calculateBalance(cardTo.getId())).isEqualByComparingTo("85.00");
+        assertThat(ledgerService.reconcile())
+                .extracting(LedgerEntryRepository.BalanceMismatch::getCardId)
+                .doesNotContain(cardFrom.getId(), cardTo.getId());
+    }
+
+    @Test
+    void postedTransferCannotBeUpdatedOrDeleted() {
+        User user = userRepository.save(getUser());
+        String numberCardFrom = getRandomCardNumber();
+        String numberCardTo = getRandomCardNumber();
+        CardReadDto cardFrom = cardService.create(getCardCreateEditDto(user, numberCardFrom, "100.00"));
+        CardReadDto cardTo = cardService.create(getCardCreateEditDto(user, numberCardTo, "50.00"));
+        TransferReadDto transfer = transferService.create(
+                getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "30.00"));
+
+        assertThrows(IllegalStateException.class, () -> transferService.update(transfer.getId(),
+                getTransferCreateEditDto(user, numberCardFrom, numberCardTo, "300.00")));
+        assertThrows(IllegalStateException.class, () -> transferService.delete(transfer.getId()));
+
+        assertThat(transferService.findById(transfer.getId()).getSum()).isEqualByComparingTo("30.00");
+        assertThat(ledgerService.calculateBalance(cardFrom.getId())).isEqualByComparingTo("70.00");
+        assertThat(ledgerService.calculateBalance(cardTo.getId())).isEqualByComparingTo("80.00");
+        assertThat(ledgerService.reconcile())
+                .extracting(LedgerEntryRepository.BalanceMismatch::getCardId)
+                .doesNotContain(cardFrom.getId(), cardTo.getId());
+    }
+
+    @Test
+    void reconcileReportsBalanceChangedOutsideLedger() {
+        User user = userRepository.save(getUser());
+        CardReadDto cardReadDto = cardService.create(getCardCreateEditDto(user, getRandomCardNumber(), "100.00"));
+        Card card = cardRepository.findById(cardReadDto.getId()).orElseThrow();
+        card.setBalance(new BigDecimal("150.00"));
+        cardRepository.saveAndFlush(card);
+
+        List<LedgerEntryRepository.BalanceMismatch> mismatches = ledgerService.reconcile();
+
+        assertThat(mismatches)
+                .filteredOn(mismatch -> mismatch.getCardId().equals(card.getId()))
+                .singleElement()
+                .satisfies(mismatch -> {
+                    assertThat(mismatch.getBalance()).isEqualByComparingTo("150.00");
+                    assertThat(mismatch.getLedgerBalance()).isEqualByComparingTo("100.00");
+                });
+    }
+}
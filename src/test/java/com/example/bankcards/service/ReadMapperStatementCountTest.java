@@ -0,0 +1,143 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.TotalMode;
+import com.example.bankcards.filter.CardFilter;
+import com.example.bankcards.filter.TransferFilter;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static com.example.bankcards.TestFixtures.getCard;
+import static com.example.bankcards.TestFixtures.getRandomCardNumber;
+import static com.example.bankcards.TestFixtures.getTransfer;
+import static com.example.bankcards.TestFixtures.getUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что количество SQL запросов на страницу карт и переводов
+ * не зависит от размера страницы (пользователи загружаются тем же запросом).
+ **/
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReadMapperStatementCountTest {
+
+    private static final int USERS = 25;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private static Long fixtureUserId;
+
+    @BeforeEach
+    void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (fixtureUserId != null) {
+            return;
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(getUser());
+            fixtureUserId = user.getId();
+            cardRepository.save(getCard(user, getRandomCardNumber(), new BigDecimal("100.00")));
+            for (int j = 0; j < 2; j++) {
+                transferRepository.save(getTransfer(user, LocalDate.now()));
+            }
+        }
+    }
+
+    @Test
+    void findAllCardsUsesConstantStatementCount() {
+        CardFilter filter = CardFilter.builder().build();
+
+        long smallPage = countStatements(() -> cardService.findAll(filter, PageRequest.of(0, 2)));
+        long largePage = countStatements(() -> cardService.findAll(filter, PageRequest.of(0, 20)));
+
+        assertThat(largePage).isEqualTo(smallPage);
+        assertThat(largePage).isEqualTo(2);
+    }
+
+    @Test
+    void findAllCardsByUserIdUsesConstantStatementCount() {
+        CardFilter filter = CardFilter.builder().build();
+
+        long statements = countStatements(() -> cardService.findAllByUserId(fixtureUserId, PageRequest.of(0, 20), filter));
+
+        // одна карта на первой неполной странице: без отдельного count и без догрузки пользователя
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void findAllTransfersUsesConstantStatementCount() {
+        TransferFilter filter = TransferFilter.builder().build();
+
+        long smallPage = countStatements(() -> transferService.findAll(filter, PageRequest.of(0, 2)));
+        long largePage = countStatements(() -> transferService.findAll(filter, PageRequest.of(0, 40)));
+
+        assertThat(largePage).isEqualTo(smallPage);
+        assertThat(largePage).isEqualTo(2);
+    }
+
+    @Test
+    void findAllTransfersByUserIdUsesConstantStatementCount() {
+        long statements = countStatements(() -> transferService.findAllByUserId(fixtureUserId, PageRequest.of(0, 20)));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void findCardSliceSkipsCountQuery() {
+        CardFilter filter = CardFilter.builder().build();
+
+        long statements = countStatements(() -> assertThat(
+                cardService.findAll(filter, PageRequest.of(0, 20), TotalMode.NONE).hasNext()).isTrue());
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void findTransferSliceSkipsCountQuery() {
+        TransferFilter filter = TransferFilter.builder().build();
+
+        long statements = countStatements(() -> assertThat(
+                transferService.findAll(filter, PageRequest.of(0, 20), TotalMode.NONE).hasNext()).isTrue());
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    private long countStatements(Runnable query) {
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.RevokedRefreshToken;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.repository.RevokedRefreshTokenRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AccessToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedRefreshTokenRepository revokedRefreshTokenRepository;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    @Qualifier("refreshTokenDecoder")
+    private JwtDecoder refreshTokenDecoder;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = userRepository.save(getUser());
+    }
+
+    @Test
+    void refreshIssuesNewTokenPair() {
+        AccessToken issued = refreshTokenService.issue(loadUser());
+
+        AccessToken refreshed = refreshTokenService.refresh(issued.refreshToken());
+
+        assertThat(refreshed.refreshToken()).isNotEqualTo(issued.refreshToken());
+        assertThat(jwtDecoder.decode(refreshed.IdToken()).getSubject()).isEqualTo(user.getEmail());
+        assertThat(refreshed.expiresIn()).isPositive();
+    }
+
+    @Test
+    void refreshFailedIfTokenReused() {
+        AccessToken issued = refreshTokenService.issue(loadUser());
+        refreshTokenService.refresh(issued.refreshToken());
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(issued.refreshToken()));
+    }
+
+    @Test
+    void refreshFailedIfTokenRevoked() {
+        AccessToken issued = refreshTokenService.issue(loadUser());
+        refreshTokenService.revoke(issued.refreshToken());
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(issued.refreshToken()));
+    }
+
+    @Test
+    void deleteExpiredRevokedTokensKeepsActiveRevocations() {
+        AccessToken issued = refreshTokenService.issue(loadUser());
+        refreshTokenService.revoke(issued.refreshToken());
+        String expiredTokenId = UUID.randomUUID().toString();
+        revokedRefreshTokenRepository.save(new RevokedRefreshToken(expiredTokenId, Instant.now().minusSeconds(60)));
+
+        assertThat(refreshTokenService.deleteExpiredRevokedTokens()).isPositive();
+
+        assertThat(revokedRefreshTokenRepository.existsById(expiredTokenId)).isFalse();
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(issued.refreshToken()));
+    }
+
+    @Test
+    void refreshFailedIfUserDeleted() {
+        AccessToken issued = refreshTokenService.issue(loadUser());
+        userService.delete(user.getId());
+
+        assertThrows(UsernameNotFoundException.class, () -> refreshTokenService.refresh(issued.refreshToken()));
+    }
+
+    @Test
+    void tokensAreNotInterchangeable() {
+        AccessToken issued = refreshTokenService.issue(loadUser());
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(issued.IdToken()));
+        assertThrows(JwtValidationException.class, () -> jwtDecoder.decode(issued.refreshToken()));
+        assertThat(refreshTokenDecoder.decode(issued.refreshToken()).getId()).isNotBlank();
+    }
+
+    private UserDetails loadUser() {
+        return userDetailsService.loadUserByUsername(user.getEmail());
+    }
+
+    private static User getUser() {
+        String suffix = String.valueOf(ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999));
+        return User.builder()
+                .firstname("Ivan")
+                .lastname("Ivanov")
+                .phoneNumber("+375" + suffix)
+                .email("ivan" + suffix + "@gmail.com")
+                .role(Role.USER)
+                .birthDate(LocalDate.of(2000, 11, 11))
+                .passportNumber(suffix)
+                .password("{noop}123")
+                .build();
+    }
+}
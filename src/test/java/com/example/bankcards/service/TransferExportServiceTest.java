@@ -0,0 +1,75 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enumpack.ExportFormat;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.bankcards.TestFixtures.getTransfer;
+import static com.example.bankcards.TestFixtures.getUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransferExportServiceTest {
+
+    private static final int ROWS = TransferExportService.EXPORT_BATCH_SIZE * 2 + 500;
+
+    @Autowired
+    private TransferExportService transferExportService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportWritesEveryTransferAsNdjsonAndCsv() throws Exception {
+        User user = userRepository.save(getUser());
+        List<Transfer> transfers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            transfers.add(getTransfer(user, LocalDate.of(2025, 1, 1)));
+        }
+        transferRepository.saveAll(transfers);
+        long total = transferRepository.count();
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long ndjsonCount = transferExportService.export(ExportFormat.NDJSON, ndjson);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long csvCount = transferExportService.export(ExportFormat.CSV, csv);
+
+        List<String> ndjsonLines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        List<String> csvLines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(ndjsonCount).isEqualTo(total);
+        assertThat(csvCount).isEqualTo(total);
+        assertThat(ndjsonLines).hasSize((int) total);
+        assertThat(csvLines).hasSize((int) total + 1);
+        assertThat(csvLines.get(0)).isEqualTo("id,userId,cardFrom,cardTo,transferDate,sum");
+
+        Long lastId = transfers.get(ROWS - 1).getId();
+        JsonNode lastJson = objectMapper.readTree(ndjsonLines.get(ndjsonLines.size() - 1));
+        assertThat(lastJson.get("id").asLong()).isEqualTo(lastId);
+        assertThat(lastJson.get("cardFrom").asText()).isEqualTo("**** **** **** 1234");
+        assertThat(csvLines.get(csvLines.size() - 1))
+                .isEqualTo(lastId + "," + user.getId() + ",**** **** **** 1234,**** **** **** 4321,2025-01-01,50.00");
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferCreateEditDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.bankcards.TestFixtures.getCard;
+import static com.example.bankcards.TestFixtures.getRandomCardNumber;
+import static com.example.bankcards.TestFixtures.getTransferCreateEditDto;
+import static com.example.bankcards.TestFixtures.getUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что встречные переводы между двумя картами из 64 потоков
+ * не теряют обновлений баланса и не приводят к взаимной блокировке.
+ **/
+class TransferServiceConcurrencyTest {
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @TestPropertySource(properties = "bank.transfer.mode=pessimistic")
+    class PessimisticMode extends ConcurrentTransferScenario {
+    }
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @TestPropertySource(properties = {
+            "bank.transfer.mode=optimistic",
+            "bank.transfer.optimistic-max-attempts=100000"
+    })
+    class OptimisticMode extends ConcurrentTransferScenario {
+    }
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @TestPropertySource(properties = "bank.transfer.mode=atomic")
+    class AtomicMode extends ConcurrentTransferScenario {
+
+        @Autowired
+        private TransferService transferService;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private CardRepository cardRepository;
+
+        /**
+         * Атомарные переводы и пакеты блокируют строки карт в одном порядке (по id),
+         * поэтому их смесь по одной паре карт не приводит к взаимной блокировке.
+         **/
+        @Test
+        void atomicTransfersAndBatchesKeepExactBalance() throws Exception {
+            User user = userRepository.save(getUser());
+            String numberCardFrom = getRandomCardNumber();
+            String numberCardTo = getRandomCardNumber();
+            Card cardFrom = cardRepository.save(getCard(user, numberCardFrom, ConcurrentTransferScenario.INITIAL_BALANCE));
+            Card cardTo = cardRepository.save(getCard(user, numberCardTo, ConcurrentTransferScenario.INITIAL_BALANCE));
+            TransferCreateEditDto forward = getTransferCreateEditDto(user, numberCardFrom, numberCardTo,
+                    ConcurrentTransferScenario.SUM_FORWARD);
+            TransferCreateEditDto backward = getTransferCreateEditDto(user, numberCardTo, numberCardFrom,
+                    ConcurrentTransferScenario.SUM_BACKWARD);
+
+            ExecutorService executor = Executors.newFixedThreadPool(ConcurrentTransferScenario.THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ConcurrentTransferScenario.THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ConcurrentTransferScenario.TRANSFERS_PER_THREAD; j++) {
+                        switch (thread % 4) {
+                            case 0 -> transferService.create(forward);
+                            case 1 -> transferService.create(backward);
+                            case 2 -> transferService.createBatch(user.getId(), List.of(forward, backward));
+                            default -> transferService.createBatch(user.getId(), List.of(backward, forward));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            // каждые четыре потока за итерацию проводят три перевода вперёд и три назад
+            BigDecimal netMoved = ConcurrentTransferScenario.SUM_FORWARD
+                    .subtract(ConcurrentTransferScenario.SUM_BACKWARD)
+                    .multiply(BigDecimal.valueOf(ConcurrentTransferScenario.THREADS / 4 * 3
+                                                 * ConcurrentTransferScenario.TRANSFERS_PER_THREAD));
+            assertThat(cardRepository.findById(cardFrom.getId()).orElseThrow().getBalance())
+                    .isEqualByComparingTo(ConcurrentTransferScenario.INITIAL_BALANCE.subtract(netMoved));
+            assertThat(cardRepository.findById(cardTo.getId()).orElseThrow().getBalance())
+                    .isEqualByComparingTo(ConcurrentTransferScenario.INITIAL_BALANCE.add(netMoved));
+        }
+    }
+
+    @Slf4j
+    abstract static class ConcurrentTransferScenario {
+
+        private static final int THREADS = 64;
+        private static final int TRANSFERS_PER_THREAD = 5;
+        private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+        private static final BigDecimal SUM_FORWARD = new BigDecimal("3.00");
+        private static final BigDecimal SUM_BACKWARD = new BigDecimal("1.00");
+
+        @Autowired
+        private TransferService transferService;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private CardRepository cardRepository;
+
+        @Autowired
+        private TransferRepository transferRepository;
+
+        @Autowired
+        private LedgerService ledgerService;
+
+        @Test
+        void concurrentTransfersKeepExactBalance() throws Exception {
+            User user = userRepository.save(getUser());
+            String numberCardFrom = getRandomCardNumber();
+            String numberCardTo = getRandomCardNumber();
+            Card cardFrom = cardRepository.save(getCard(user, numberCardFrom, INITIAL_BALANCE));
+            Card cardTo = cardRepository.save(getCard(user, numberCardTo, INITIAL_BALANCE));
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                boolean forward = i % 2 == 0;
+                TransferCreateEditDto transferCreateEditDto = TransferCreateEditDto.builder()
+                        .userId(user.getId())
+                        .cardFrom(forward ? numberCardFrom : numberCardTo)
+                        .cardTo(forward ? numberCardTo : numberCardFrom)
+                        .sum(forward ? SUM_FORWARD : SUM_BACKWARD)
+                        .build();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                        transferService.create(transferCreateEditDto);
+                    }
+                    return null;
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+            executor.shutdown();
+
+            int transfersCount = THREADS * TRANSFERS_PER_THREAD;
+            log.info("{}: {} transfers in {} ms ({} transfers/s)", getClass().getSimpleName(), transfersCount,
+                    elapsedMillis, transfersCount * 1000L / Math.max(elapsedMillis, 1));
+
+            BigDecimal netMoved = SUM_FORWARD.subtract(SUM_BACKWARD)
+                    .multiply(BigDecimal.valueOf(transfersCount / 2));
+            assertThat(cardRepository.findById(cardFrom.getId()).orElseThrow().getBalance())
+                    .isEqualByComparingTo(INITIAL_BALANCE.subtract(netMoved));
+            assertThat(cardRepository.findById(cardTo.getId()).orElseThrow().getBalance())
+                    .isEqualByComparingTo(INITIAL_BALANCE.add(netMoved));
+            // карты созданы без начальной проводки, поэтому по журналу баланс равен сумме переводов
+            assertThat(ledgerService.calculateBalance(cardFrom.getId())).isEqualByComparingTo(netMoved.negate());
+            assertThat(ledgerService.calculateBalance(cardTo.getId())).isEqualByComparingTo(netMoved);
+            assertThat(transferRepository.findAll().stream()
+                    .filter(transfer -> transfer.getUser().getId().equals(user.getId())))
+                    .hasSize(transfersCount);
+        }
+    }
+}
@@ -1,33 +1,54 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.CardBalanceCache;
+import com.example.bankcards.cache.TransferIdempotencyCache;
+import com.example.bankcards.config.TransferProperties;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.TransferBatchResultDto;
 import com.example.bankcards.dto.TransferCreateEditDto;
 import com.example.bankcards.dto.TransferReadDto;
 import com.example.bankcards.dto.UserReadDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferIdempotencyKey;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enumpack.Role;
 import com.example.bankcards.enumpack.Status;
+import com.example.bankcards.enumpack.TransferMode;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
 import com.example.bankcards.filter.TransferFilter;
 import com.example.bankcards.mapper.TransferCreateEditMapper;
 import com.example.bankcards.mapper.TransferReadMapper;
+import com.example.bankcards.metrics.OperationMetrics;
 import com.example.bankcards.predicate.QPredicate;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferIdempotencyKeyRepository;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.util.Base64Codec;
+import com.example.bankcards.util.TransferCursor;
 import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -36,9 +57,15 @@ import static com.example.bankcards.entity.QTransfer.transfer;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -57,6 +84,31 @@ class TransferServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+
+    @Mock
+    private TransferIdempotencyCache transferIdempotencyCache;
+
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties(TransferMode.PESSIMISTIC, 3, 100,
+            Duration.ofHours(24), Duration.ofHours(1));
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TransferService transferService;
 
@@ -129,6 +181,46 @@ class TransferServiceTest {
         verifyNoInteractions(transferCreateEditMapper);
     }
 
+    @Test
+    void findAllByUserIdAfterFirstPageReturnsNextCursor() {
+        User user = getUser();
+        List<Transfer> transfers = new ArrayList<>(getPageTransfer().getContent());
+        Transfer last = transfers.get(0);
+        doReturn(transfers).when(transferRepository).findFirstByUserId(user.getId(), Limit.of(2));
+        doReturn(getTransferReadDto()).when(transferReadMapper).map(any(Transfer.class));
+
+        CursorPageResponse<TransferReadDto> actualResult = transferService.findAllByUserIdAfter(user.getId(), "", 1);
+
+        assertThat(actualResult.getContent()).hasSize(1);
+        assertThat(TransferCursor.decode(actualResult.getNextCursor()))
+                .isEqualTo(new TransferCursor(last.getTransferDate(), last.getId()));
+    }
+
+    @Test
+    void findAllByUserIdAfterLastPageHasNoCursor() {
+        User user = getUser();
+        TransferCursor cursor = new TransferCursor(LocalDate.of(2025, 1, 1), 100L);
+        List<Transfer> transfers = getPageTransfer().getContent();
+        doReturn(transfers).when(transferRepository)
+                .findNextByUserId(user.getId(), cursor.transferDate(), cursor.id(), Limit.of(21));
+        doReturn(getTransferReadDto()).when(transferReadMapper).map(any(Transfer.class));
+
+        CursorPageResponse<TransferReadDto> actualResult =
+                transferService.findAllByUserIdAfter(user.getId(), cursor.encode(), 20);
+
+        assertThat(actualResult.getContent()).hasSize(2);
+        assertThat(actualResult.getNextCursor()).isNull();
+    }
+
+    @Test
+    void findAllByUserIdAfterIfCursorInvalid() {
+        User user = getUser();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.findAllByUserIdAfter(user.getId(), "not-a-cursor", 20));
+        verifyNoInteractions(transferRepository);
+    }
+
     @Test
     void createSuccess() {
         User user = getUser();
@@ -138,7 +230,7 @@ class TransferServiceTest {
         Transfer transfer = getTransfer();
         Card cardFrom = cardList.get(0);
         Card cardTo = cardList.get(1);
-        doReturn(cardList).when(cardRepository).findAllByUserId(user.getId());
+        doReturn(cardList).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
         doReturn(cardFrom).when(cardRepository).saveAndFlush(cardFrom);
         doReturn(cardTo).when(cardRepository).saveAndFlush(cardTo);
         doReturn(transfer).when(transferCreateEditMapper).map(transferCreateEditDto);
@@ -150,10 +242,235 @@ class TransferServiceTest {
         assertThat(actualResult.getCardFrom()).isEqualTo(transferReadDto.getCardFrom());
         assertThat(actualResult.getCardTo()).isEqualTo(transferReadDto.getCardTo());
         assertThat(actualResult.getId()).isEqualTo(transferReadDto.getId());
-        verify(cardRepository).findAllByUserId(user.getId());
+        verify(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
         verify(cardRepository).saveAndFlush(cardFrom);
         verify(cardRepository).saveAndFlush(cardTo);
         verify(transferRepository).save(transfer);
+        verify(cardBalanceCache).invalidate(cardFrom.getNumber());
+        verify(cardBalanceCache).invalidate(cardTo.getNumber());
+        verify(ledgerService).postTransfer(transfer);
+    }
+
+    @Test
+    void createWithIdempotencyKeyStoresKey() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        List<Card> cardList = getListCard();
+        Transfer transfer = getTransfer();
+        String idempotencyKey = "key-1";
+        doReturn(Optional.empty()).when(transferIdempotencyCache).get(eq(user.getId()), eq(idempotencyKey), any());
+        doReturn(Optional.empty()).when(transferIdempotencyKeyRepository).findByUserIdAndIdempotencyKey(user.getId(), idempotencyKey);
+        doReturn(cardList).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
+        doReturn(transfer).when(transferCreateEditMapper).map(transferCreateEditDto);
+        doReturn(transfer).when(transferRepository).save(transfer);
+        doReturn(transferReadDto).when(transferReadMapper).map(transfer);
+
+        TransferReadDto actualResult = transferService.create(transferCreateEditDto, idempotencyKey);
+
+        assertThat(actualResult).isEqualTo(transferReadDto);
+        verify(transferIdempotencyKeyRepository).saveAndFlush(TransferIdempotencyKey.builder()
+                .userId(user.getId())
+                .idempotencyKey(idempotencyKey)
+                .build());
+        verify(transferIdempotencyCache).put(eq(user.getId()), eq(idempotencyKey), any(), eq(transferReadDto), any());
+    }
+
+    @Test
+    void createReturnsCachedTransferIfIdempotencyKeyReplayed() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        String idempotencyKey = "key-1";
+        doReturn(Optional.of(transferReadDto)).when(transferIdempotencyCache).get(eq(user.getId()), eq(idempotencyKey), any());
+
+        TransferReadDto actualResult = transferService.create(transferCreateEditDto, idempotencyKey);
+
+        assertThat(actualResult).isEqualTo(transferReadDto);
+        verifyNoInteractions(cardRepository, transferRepository, transferIdempotencyKeyRepository);
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void createReturnsStoredTransferIfIdempotencyKeyReplayed() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        Transfer transfer = getTransfer();
+        String idempotencyKey = "key-1";
+        TransferIdempotencyKey storedKey = TransferIdempotencyKey.builder()
+                .userId(user.getId())
+                .idempotencyKey(idempotencyKey)
+                .transfer(transfer)
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .build();
+        doReturn(Optional.empty()).when(transferIdempotencyCache).get(eq(user.getId()), eq(idempotencyKey), any());
+        doReturn(Optional.of(storedKey)).when(transferIdempotencyKeyRepository).findByUserIdAndIdempotencyKey(user.getId(), idempotencyKey);
+        doReturn(transferReadDto).when(transferReadMapper).map(transfer);
+
+        TransferReadDto actualResult = transferService.create(transferCreateEditDto, idempotencyKey);
+
+        assertThat(actualResult).isEqualTo(transferReadDto);
+        verify(transferIdempotencyCache).put(eq(user.getId()), eq(idempotencyKey), any(), eq(transferReadDto), eq(storedKey.getCreatedAt()));
+        verifyNoInteractions(cardRepository, transferRepository);
+    }
+
+    @Test
+    void createFailedIfIdempotencyKeyReusedWithDifferentRequest() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        String idempotencyKey = "key-1";
+        TransferIdempotencyKey storedKey = TransferIdempotencyKey.builder()
+                .userId(user.getId())
+                .idempotencyKey(idempotencyKey)
+                .requestHash("hash-of-another-request")
+                .transfer(getTransfer())
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .build();
+        doReturn(Optional.empty()).when(transferIdempotencyCache).get(eq(user.getId()), eq(idempotencyKey), any());
+        doReturn(Optional.of(storedKey)).when(transferIdempotencyKeyRepository).findByUserIdAndIdempotencyKey(user.getId(), idempotencyKey);
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> transferService.create(transferCreateEditDto, idempotencyKey));
+        verifyNoInteractions(cardRepository, transferRepository, transferReadMapper);
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void createTreatsExpiredIdempotencyKeyAsNew() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        Transfer transfer = getTransfer();
+        String idempotencyKey = "key-1";
+        TransferIdempotencyKey storedKey = TransferIdempotencyKey.builder()
+                .userId(user.getId())
+                .idempotencyKey(idempotencyKey)
+                .requestHash("hash-of-another-request")
+                .transfer(transfer)
+                .createdAt(LocalDateTime.now().minusHours(25))
+                .build();
+        doReturn(Optional.empty()).when(transferIdempotencyCache).get(eq(user.getId()), eq(idempotencyKey), any());
+        doReturn(Optional.of(storedKey)).when(transferIdempotencyKeyRepository).findByUserIdAndIdempotencyKey(user.getId(), idempotencyKey);
+        doReturn(getListCard()).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
+        doReturn(transfer).when(transferCreateEditMapper).map(transferCreateEditDto);
+        doReturn(transfer).when(transferRepository).save(transfer);
+        doReturn(transferReadDto).when(transferReadMapper).map(transfer);
+
+        TransferReadDto actualResult = transferService.create(transferCreateEditDto, idempotencyKey);
+
+        assertThat(actualResult).isEqualTo(transferReadDto);
+        verify(transferIdempotencyKeyRepository).delete(storedKey);
+        verify(transferRepository).save(transfer);
+    }
+
+    @Test
+    void createRetriesIfOptimisticLockConflict() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        List<Card> cardList = getListCard();
+        Transfer transfer = getTransfer();
+        doReturn(TransferMode.OPTIMISTIC).when(transferProperties).mode();
+        doReturn(cardList).when(cardRepository).findAllForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
+        doThrow(ObjectOptimisticLockingFailureException.class)
+                .doReturn(cardList.get(0))
+                .when(cardRepository).saveAndFlush(cardList.get(0));
+        doReturn(cardList.get(1)).when(cardRepository).saveAndFlush(cardList.get(1));
+        doReturn(transfer).when(transferCreateEditMapper).map(transferCreateEditDto);
+        doReturn(transfer).when(transferRepository).save(transfer);
+        doReturn(transferReadDto).when(transferReadMapper).map(transfer);
+
+        TransferReadDto actualResult = transferService.create(transferCreateEditDto);
+
+        assertThat(actualResult).isEqualTo(transferReadDto);
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(cardRepository, never()).findAllForUpdateForTransfer(any(), any(), any());
+        verify(transferRepository).save(transfer);
+    }
+
+    @Test
+    void createFailedIfOptimisticAttemptsExhausted() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        doReturn(TransferMode.OPTIMISTIC).when(transferProperties).mode();
+        doAnswer(invocation -> getListCard())
+                .when(cardRepository).findAllForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
+        doThrow(ObjectOptimisticLockingFailureException.class).when(cardRepository).saveAndFlush(any());
+
+        assertThrows(IllegalStateException.class, () -> transferService.create(transferCreateEditDto));
+        verify(transactionTemplate, times(3)).execute(any());
+        verifyNoInteractions(transferReadMapper, transferRepository);
+    }
+
+    @Test
+    void createAtomicSuccess() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        Transfer transfer = getTransfer();
+        List<String> encodedNumbers = getEncodedNumbers(transferCreateEditDto);
+        BigDecimal sum = transferCreateEditDto.getSum();
+        doReturn(TransferMode.ATOMIC).when(transferProperties).mode();
+        doReturn(1).when(cardRepository).debitBalance(encodedNumbers.get(0), user.getId(), sum);
+        doReturn(1).when(cardRepository).creditBalance(encodedNumbers.get(1), user.getId(), sum);
+        doReturn(transfer).when(transferCreateEditMapper).map(transferCreateEditDto);
+        doReturn(transfer).when(transferRepository).save(transfer);
+        doReturn(transferReadDto).when(transferReadMapper).map(transfer);
+
+        TransferReadDto actualResult = transferService.create(transferCreateEditDto);
+
+        assertThat(actualResult).isEqualTo(transferReadDto);
+        verify(cardRepository).debitBalance(encodedNumbers.get(0), user.getId(), sum);
+        verify(cardRepository).creditBalance(encodedNumbers.get(1), user.getId(), sum);
+        verify(cardRepository, never()).findAllByNumberInAndUserId(any(), any());
+        verify(cardRepository, never()).saveAndFlush(any());
+        verify(transferRepository).save(transfer);
+    }
+
+    @Test
+    void createAtomicLocksCardsInIdOrderBeforeUpdates() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        Transfer transfer = getTransfer();
+        List<String> encodedNumbers = getEncodedNumbers(transferCreateEditDto);
+        BigDecimal sum = transferCreateEditDto.getSum();
+        doReturn(TransferMode.ATOMIC).when(transferProperties).mode();
+        doReturn(1).when(cardRepository).debitBalance(encodedNumbers.get(0), user.getId(), sum);
+        doReturn(1).when(cardRepository).creditBalance(encodedNumbers.get(1), user.getId(), sum);
+        doReturn(transfer).when(transferCreateEditMapper).map(transferCreateEditDto);
+        doReturn(transfer).when(transferRepository).save(transfer);
+
+        transferService.create(transferCreateEditDto);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).lockForTransfer(encodedNumbers, getEncodedCardTo(transferCreateEditDto), user.getId());
+        inOrder.verify(cardRepository).debitBalance(encodedNumbers.get(0), user.getId(), sum);
+        inOrder.verify(cardRepository).creditBalance(encodedNumbers.get(1), user.getId(), sum);
+    }
+
+    @Test
+    void createAtomicFailedIfBalanceCardFromLessTransferSum() {
+        User user = getUser();
+        List<Card> cardList = getListCard();
+        TransferCreateEditDto transferCreateEditDto = TransferCreateEditDto.builder()
+                .userId(user.getId())
+                .cardFrom("1234123412341234")
+                .cardTo("4321432143214321")
+                .sum(BigDecimal.valueOf(1000.00))
+                .build();
+        List<String> encodedNumbers = getEncodedNumbers(transferCreateEditDto);
+        doReturn(TransferMode.ATOMIC).when(transferProperties).mode();
+        doReturn(0).when(cardRepository).debitBalance(encodedNumbers.get(0), user.getId(), transferCreateEditDto.getSum());
+        doReturn(cardList).when(cardRepository).findAllByNumberInAndUserId(encodedNumbers, user.getId());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transferService.create(transferCreateEditDto));
+
+        assertThat(exception.getMessage()).isEqualTo("Insufficient funds on the card");
+        assertThat(meterRegistry.get(OperationMetrics.TRANSFER_CREATE)
+                .tag(OperationMetrics.OUTCOME_TAG, "insufficient_funds").timer().count()).isEqualTo(1);
+        verify(cardRepository, never()).creditBalance(any(), any(), any());
+        verifyNoInteractions(transferReadMapper, transferRepository);
     }
 
     @Test
@@ -161,7 +478,7 @@ class TransferServiceTest {
         User user = getUser();
         TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
         List<Card> cardList = new ArrayList<>();
-        doReturn(cardList).when(cardRepository).findAllByUserId(user.getId());
+        doReturn(cardList).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
 
         assertThrows(EntityNotFoundException.class, () -> transferService.create(transferCreateEditDto));
         verifyNoInteractions(transferReadMapper, transferRepository);
@@ -170,11 +487,6 @@ class TransferServiceTest {
     @Test
     void createFailedIfNumberCardFromEqualsNumberCardTo() {
         User user = getUser();
-        Card card = getCard();
-        List<Card> cardList = new ArrayList<>();
-        cardList.add(card);
-        cardList.add(card);
-        doReturn(cardList).when(cardRepository).findAllByUserId(user.getId());
         TransferCreateEditDto transferCreateEditDto = TransferCreateEditDto.builder()
                 .userId(user.getId())
                 .cardFrom("1234123412341234")
@@ -183,25 +495,24 @@ class TransferServiceTest {
                 .build();
 
         assertThrows(IllegalArgumentException.class, () -> transferService.create(transferCreateEditDto));
-        verifyNoInteractions(transferReadMapper, transferRepository);
-        verify(cardRepository).findAllByUserId(user.getId());
+        verifyNoInteractions(transferReadMapper, transferRepository, cardRepository);
     }
 
     @Test
     void createFailedIfBalanceCardFromLessTransferSum() {
         User user = getUser();
         List<Card> cardList = getListCard();
-        doReturn(cardList).when(cardRepository).findAllByUserId(user.getId());
         TransferCreateEditDto transferCreateEditDto = TransferCreateEditDto.builder()
                 .userId(user.getId())
                 .cardFrom("1234123412341234")
                 .cardTo("4321432143214321")
                 .sum(BigDecimal.valueOf(1000.00))
                 .build();
+        doReturn(cardList).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
 
         assertThrows(IllegalArgumentException.class, () -> transferService.create(transferCreateEditDto));
         verifyNoInteractions(transferReadMapper, transferRepository);
-        verify(cardRepository).findAllByUserId(user.getId());
+        verify(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
     }
 
     @Test
@@ -209,13 +520,13 @@ class TransferServiceTest {
         User user = getUser();
         TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
         List<Card> cardList = getListCard();
-        doReturn(cardList).when(cardRepository).findAllByUserId(user.getId());
+        doReturn(cardList).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
         Card cardFrom = cardList.get(0);
         cardFrom.setStatus(Status.BLOCKED);
 
         assertThrows(IllegalArgumentException.class, () -> transferService.create(transferCreateEditDto));
         verifyNoInteractions(transferReadMapper, transferRepository);
-        verify(cardRepository).findAllByUserId(user.getId());
+        verify(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
     }
 
     @Test
@@ -223,13 +534,65 @@ class TransferServiceTest {
         User user = getUser();
         TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
         List<Card> cardList = getListCard();
-        doReturn(cardList).when(cardRepository).findAllByUserId(user.getId());
+        doReturn(cardList).when(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
         Card cardFrom = cardList.get(0);
         cardFrom.setStatus(Status.EXPIRED);
 
         assertThrows(IllegalArgumentException.class, () -> transferService.create(transferCreateEditDto));
         verifyNoInteractions(transferReadMapper, transferRepository);
-        verify(cardRepository).findAllByUserId(user.getId());
+        verify(cardRepository).findAllForUpdateForTransfer(getEncodedNumbers(transferCreateEditDto), getEncodedCardTo(transferCreateEditDto), user.getId());
+    }
+
+    @Test
+    void createBatchAppliesNetBalanceAndReportsRejectedTransfers() {
+        User user = getUser();
+        List<Card> cardList = getListCard();
+        Transfer transfer = getTransfer();
+        TransferReadDto transferReadDto = getTransferReadDto();
+        TransferCreateEditDto forward = getTransferCreateEditDto();
+        TransferCreateEditDto backward = TransferCreateEditDto.builder()
+                .userId(user.getId())
+                .cardFrom("4321432143214321")
+                .cardTo("1234123412341234")
+                .sum(BigDecimal.valueOf(20.00))
+                .build();
+        TransferCreateEditDto tooLarge = TransferCreateEditDto.builder()
+                .userId(user.getId())
+                .cardFrom("1234123412341234")
+                .cardTo("4321432143214321")
+                .sum(BigDecimal.valueOf(500.00))
+                .build();
+        doReturn(cardList).when(cardRepository).findAllForUpdateByNumberInAndUserId(any(), any());
+        doReturn(transfer).when(transferCreateEditMapper).map(any(TransferCreateEditDto.class));
+        doReturn(List.of(transfer, transfer)).when(transferRepository).saveAll(List.of(transfer, transfer));
+        doReturn(transferReadDto).when(transferReadMapper).map(transfer);
+
+        List<TransferBatchResultDto> actualResult = transferService.createBatch(user.getId(),
+                List.of(forward, tooLarge, backward));
+
+        assertThat(actualResult).extracting(TransferBatchResultDto::isSuccess).containsExactly(true, false, true);
+        assertThat(actualResult.get(1).getReason()).isEqualTo("Insufficient funds on the card");
+        assertThat(cardList.get(0).getBalance()).isEqualByComparingTo(BigDecimal.valueOf(70.00));
+        assertThat(cardList.get(1).getBalance()).isEqualByComparingTo(BigDecimal.valueOf(130.00));
+        verify(cardRepository).findAllForUpdateByNumberInAndUserId(any(), any());
+        verify(cardRepository, never()).saveAndFlush(any());
+        verify(ledgerService).postTransfers(List.of(transfer, transfer), cardList);
+        verify(ledgerService, never()).postTransfer(any());
+    }
+
+    @Test
+    void createBatchRejectsTransfersOfAnotherUser() {
+        User user = getUser();
+        TransferCreateEditDto transferCreateEditDto = getTransferCreateEditDto();
+        doReturn(getListCard()).when(cardRepository).findAllForUpdateByNumberInAndUserId(any(), any());
+        doReturn(List.of()).when(transferRepository).saveAll(List.of());
+
+        List<TransferBatchResultDto> actualResult = transferService.createBatch(user.getId() + 1,
+                List.of(transferCreateEditDto));
+
+        assertThat(actualResult).hasSize(1);
+        assertThat(actualResult.get(0).isSuccess()).isFalse();
+        verifyNoInteractions(transferCreateEditMapper, transferReadMapper);
     }
 
     @Test
@@ -392,16 +755,13 @@ class TransferServiceTest {
         return cardList;
     }
 
-    private static Card getCard() {
-        User user = getUser();
-        return Card.builder()
-                .id(1L)
-                .number(Base64Codec.encodeCardNumber("1234123412341234"))
-                .user(user)
-                .expirationDate(LocalDate.of(2030, 11, 11))
-                .status(Status.ACTIVE)
-                .balance(BigDecimal.valueOf(100.00))
-                .build();
+    private static List<String> getEncodedNumbers(TransferCreateEditDto transferCreateEditDto) {
+        return List.of(Base64Codec.encodeCardNumber(transferCreateEditDto.getCardFrom()),
+                Base64Codec.encodeCardNumber(transferCreateEditDto.getCardTo()));
+    }
+
+    private static String getEncodedCardTo(TransferCreateEditDto transferCreateEditDto) {
+        return Base64Codec.encodeCardNumber(transferCreateEditDto.getCardTo());
     }
 
     private static Predicate getPredicate(TransferFilter transferFilter) {
@@ -1,9 +1,14 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.UserDetailsCache;
+import com.example.bankcards.dto.EstimatedSlice;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserCreateEditDto;
 import com.example.bankcards.dto.UserReadDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enumpack.Role;
+import com.example.bankcards.enumpack.SearchMode;
+import com.example.bankcards.enumpack.TotalMode;
 import com.example.bankcards.filter.UserFilter;
 import com.example.bankcards.mapper.UserCreateEditMapper;
 import com.example.bankcards.mapper.UserReadMapper;
@@ -19,19 +24,27 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static com.example.bankcards.entity.QUser.user;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -47,6 +60,9 @@ public class UserServiceTest {
     @Mock
     private UserCreateEditMapper userCreateEditMapper;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -67,6 +83,101 @@ public class UserServiceTest {
         verifyNoInteractions(userCreateEditMapper);
     }
 
+    @Test
+    void findAllWithPrefixSearchMode() {
+        UserFilter filter = UserFilter.builder()
+                .lastname("Iva")
+                .email("ivan")
+                .searchMode(SearchMode.PREFIX)
+                .build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        Predicate predicate = QPredicate.builder()
+                .add(filter.getLastname(), user.lastname::startsWithIgnoreCase)
+                .add(filter.getEmail(), user.email::startsWithIgnoreCase)
+                .buildAnd();
+        doReturn(Page.empty()).when(userRepository).findAll(predicate, pageable);
+
+        Page<UserReadDto> actualResult = userService.findAll(filter, pageable);
+
+        assertThat(actualResult).isEmpty();
+        verify(userRepository).findAll(predicate, pageable);
+    }
+
+    @Test
+    void findAllWithoutTotalReturnsSlice() {
+        UserFilter filter = UserFilter.builder().build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        User user = getUser();
+        doReturn(new SliceImpl<>(List.of(user), pageable, false))
+                .when(userRepository).findBy(any(Predicate.class), any());
+        doReturn(getUserReadDto()).when(userReadMapper).map(user);
+
+        Slice<UserReadDto> actualResult = userService.findAll(filter, pageable, TotalMode.NONE);
+
+        assertThat(actualResult).isNotInstanceOf(Page.class).hasSize(1);
+        verify(userRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+    }
+
+    @Test
+    void findAllWithEstimatedTotalUsesTableStatistics() {
+        UserFilter filter = UserFilter.builder().build();
+        PageRequest pageable = PageRequest.of(0, 1);
+        User user = getUser();
+        doReturn(1_000_000L).when(userRepository).estimateRowCount();
+        doReturn(new SliceImpl<>(List.of(user), pageable, true))
+                .when(userRepository).findBy(any(Predicate.class), any());
+        doReturn(getUserReadDto()).when(userReadMapper).map(user);
+
+        Slice<UserReadDto> actualResult = userService.findAll(filter, pageable, TotalMode.ESTIMATED);
+
+        assertThat(actualResult).isInstanceOf(EstimatedSlice.class).isNotInstanceOf(Page.class);
+        assertThat(((EstimatedSlice<UserReadDto>) actualResult).getEstimatedTotal()).isEqualTo(1_000_000L);
+        assertThat(actualResult.hasNext()).isTrue();
+        verify(userRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+    }
+
+    @Test
+    void findAllWithEstimatedTotalKeepsHasNextIfEstimateIsTooLow() {
+        UserFilter filter = UserFilter.builder().build();
+        PageRequest pageable = PageRequest.of(3, 1);
+        User user = getUser();
+        doReturn(0L).when(userRepository).estimateRowCount();
+        doReturn(new SliceImpl<>(List.of(user), pageable, true))
+                .when(userRepository).findBy(any(Predicate.class), any());
+        doReturn(getUserReadDto()).when(userReadMapper).map(user);
+
+        Slice<UserReadDto> actualResult = userService.findAll(filter, pageable, TotalMode.ESTIMATED);
+
+        assertThat(actualResult.hasNext()).isTrue();
+        assertThat(PageResponse.of(actualResult).getMetadata().getEstimatedTotalElement()).isZero();
+        assertThat(PageResponse.of(actualResult).getMetadata().getTotalElement()).isNull();
+    }
+
+    @Test
+    void findAllWithEstimatedTotalAndFilterCountsExactly() {
+        UserFilter filter = UserFilter.builder().lastname("Ivanov").build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        doReturn(Page.empty()).when(userRepository).findAll(any(Predicate.class), any(Pageable.class));
+
+        Slice<UserReadDto> actualResult = userService.findAll(filter, pageable, TotalMode.ESTIMATED);
+
+        assertThat(actualResult).isEmpty();
+        verify(userRepository, never()).estimateRowCount();
+    }
+
+    @Test
+    void findAllWithEstimatedTotalFallsBackWithoutStatistics() {
+        UserFilter filter = UserFilter.builder().build();
+        PageRequest pageable = PageRequest.of(0, 20);
+        doReturn(-1L).when(userRepository).estimateRowCount();
+        doReturn(Page.empty()).when(userRepository).findAll(any(Predicate.class), any(Pageable.class));
+
+        Slice<UserReadDto> actualResult = userService.findAll(filter, pageable, TotalMode.ESTIMATED);
+
+        assertThat(actualResult).isInstanceOf(Page.class);
+        verify(userRepository).findAll(any(Predicate.class), any(Pageable.class));
+    }
+
     @Test
     void findByIdSuccess() {
         User user = getUser();
@@ -129,6 +240,7 @@ public class UserServiceTest {
         assertThat(actualResult).isEqualTo(userReadDto);
         verify(userRepository).saveAndFlush(user);
         verify(userRepository).findById(user.getId());
+        verify(userDetailsCache).invalidate(user.getEmail());
     }
 
     @Test
@@ -157,6 +269,36 @@ public class UserServiceTest {
         boolean actualResult = userService.delete(user.getId());
 
         assertThat(actualResult).isTrue();
+        verify(userDetailsCache).invalidate(user.getEmail());
+    }
+
+    @Test
+    void loadUserByUsernameLoadsThroughCache() {
+        User user = getUser();
+        user.setPassword("{noop}123");
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(user.getEmail());
+        doAnswer(invocation -> invocation.<Function<String, UserDetails>>getArgument(1).apply(invocation.getArgument(0)))
+                .when(userDetailsCache).get(eq(user.getEmail()), any());
+
+        UserDetails actualResult = userService.loadUserByUsername(user.getEmail());
+
+        assertThat(actualResult.getUsername()).isEqualTo(user.getEmail());
+        assertThat(actualResult.getPassword()).isEqualTo(user.getPassword());
+        assertThat(actualResult.getAuthorities()).extracting("authority").containsExactly("USER");
+    }
+
+    @Test
+    void loadUserByUsernameReturnsCachedUser() {
+        UserDetails cached = org.springframework.security.core.userdetails.User.withUsername("ivan@gmail.com")
+                .password("{noop}123")
+                .authorities(Role.USER)
+                .build();
+        doReturn(cached).when(userDetailsCache).get(eq("ivan@gmail.com"), any());
+
+        UserDetails actualResult = userService.loadUserByUsername("ivan@gmail.com");
+
+        assertThat(actualResult).isEqualTo(cached);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -0,0 +1,23 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BankCardMaskTest {
+
+    @Test
+    void masksAllButLastFourDigits() {
+        assertThat(BankCardMask.getNumberCardMask("1234567812345678")).isEqualTo("**** **** **** 5678");
+    }
+
+    @Test
+    void otherValuesAreMaskedAsWithReplaceAll() {
+        String[] values = {"", "123", "12345678123456789", "1234 5678 1234 5678", "a1234567812345678b", "12345678123456ab"};
+
+        for (String value : values) {
+            assertThat(BankCardMask.getNumberCardMask(value))
+                    .isEqualTo(value.replaceAll(BankCardMask.PATTERN, BankCardMask.REPLACE));
+        }
+    }
+}
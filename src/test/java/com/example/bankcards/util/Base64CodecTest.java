@@ -0,0 +1,63 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Base64CodecTest {
+
+    private static final byte[] KEY = "bank_rest".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void encodeMatchesJdkBase64OfXoredBytes() {
+        for (int length = 0; length <= 40; length++) {
+            String value = randomDigits(length);
+
+            assertThat(Base64Codec.encodeCardNumber(value)).isEqualTo(encodeWithJdk(value));
+        }
+    }
+
+    @Test
+    void decodeRestoresEncodedValue() {
+        for (int length = 1; length <= 40; length++) {
+            String value = randomDigits(length);
+
+            assertThat(Base64Codec.decodeCardNumber(encodeWithJdk(value))).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void nonAsciiValueRoundTrips() {
+        String value = "номер 1234";
+
+        assertThat(Base64Codec.encodeCardNumber(value)).isEqualTo(encodeWithJdk(value));
+        assertThat(Base64Codec.decodeCardNumber(Base64Codec.encodeCardNumber(value))).isEqualTo(value);
+    }
+
+    @Test
+    void decodeIfInputIsNotBase64() {
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.decodeCardNumber("ab$d"));
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.decodeCardNumber("a=bc"));
+    }
+
+    private static String encodeWithJdk(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] ^= KEY[i % KEY.length];
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static String randomDigits(int length) {
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append((char) ('0' + ThreadLocalRandom.current().nextInt(10)));
+        }
+        return value.toString();
+    }
+}